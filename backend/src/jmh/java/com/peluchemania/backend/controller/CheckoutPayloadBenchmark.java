@@ -0,0 +1,89 @@
+package com.peluchemania.backend.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.peluchemania.backend.dto.LineaCompra;
+import com.peluchemania.backend.dto.SolicitudCompra;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectura del payload de POST /api/checkout/purchase con el mismo cuerpo que manda el frontend
+ * (cada línea trae el producto completo):
+ * la versión anterior (JSON -> Map<String,Object> -> toString/valueOf por campo) contra
+ * la lectura en una pasada de SolicitudCompraDeserializer.
+ * Con -prof gc se ve la diferencia en bytes asignados por compra.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Benchmark)
+public class CheckoutPayloadBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAPA = new TypeReference<>() {
+    };
+
+    @Param({"1", "10", "50"})
+    public int lineas;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private byte[] json;
+
+    @Setup
+    public void preparar() {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < lineas; i++) {
+            if (i > 0) {
+                items.append(',');
+            }
+            items.append("{\"id\":").append(i + 1)
+                    .append(",\"nombre\":\"Peluche ").append(i)
+                    .append("\",\"descripcion\":\"Peluche suave de 30 cm\",\"stock\":25,\"onSale\":false")
+                    .append(",\"categoria\":{\"id\":1,\"nombre\":\"Osos\"}")
+                    .append(",\"quantity\":").append(1 + i % 3)
+                    .append(",\"precio\":").append(9990 + i).append('}');
+        }
+        json = ("{\"userId\":\"cliente@gmail.com\",\"total\":123456," +
+                "\"shippingAddress\":{\"calle\":\"Av. Siempreviva 742\",\"depto\":\"\",\"comuna\":\"Santiago\",\"region\":\"Metropolitana\"}," +
+                "\"cartItems\":[" + items + "]}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Antes: bytes -> Map -> conversión campo a campo
+    @Benchmark
+    public Object mapaGenerico() throws Exception {
+        return desdeMapa(objectMapper.readValue(json, MAPA));
+    }
+
+    // Ahora: bytes -> SolicitudCompra en una pasada (lo que hace @RequestBody SolicitudCompra)
+    @Benchmark
+    public Object lecturaEnUnaPasada() throws Exception {
+        return objectMapper.readValue(json, SolicitudCompra.class);
+    }
+
+    // Copia de la conversión que hacía CheckoutController antes de SolicitudCompra
+    @SuppressWarnings("unchecked")
+    private static Object desdeMapa(Map<String, Object> payload) {
+        String email = (String) payload.get("userId");
+        Double total = Double.valueOf(payload.get("total").toString());
+        Map<String, String> addr = (Map<String, String>) payload.get("shippingAddress");
+        String direccion = (addr != null)
+                ? addr.get("calle") + ", " + addr.get("comuna") + ", " + addr.get("region") : "Retiro en tienda";
+        List<Map<String, Object>> items = (List<Map<String, Object>>) payload.get("cartItems");
+        List<LineaCompra> lineas = new ArrayList<>(items.size());
+        for (Map<String, Object> item : items) {
+            lineas.add(new LineaCompra(
+                    Long.valueOf(item.get("id").toString()),
+                    Integer.valueOf(item.get("quantity").toString()),
+                    Double.valueOf(item.get("precio").toString())));
+        }
+        return List.of(email, total, direccion, lineas);
+    }
+}
@@ -0,0 +1,78 @@
+package com.peluchemania.backend.entity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización con Jackson de GET /api/productos: URL corta de imagen (almacén en disco)
+ * contra la foto embebida en base64 que se guardaba antes en urlImagen.
+ * Datos generados con semilla fija para que las corridas sean comparables.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ProductoJsonBenchmark {
+
+    @Param({"20", "200"})
+    public int cantidad;
+
+    // Tamaño de la foto embebida (bytes antes de base64)
+    @Param({"65536"})
+    public int bytesImagen;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<Producto> conUrl;
+    private List<Producto> conBase64;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        byte[] foto = new byte[bytesImagen];
+        random.nextBytes(foto);
+        String dataUrl = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(foto);
+
+        Categoria osos = new Categoria();
+        osos.setId(1L);
+        osos.setNombre("Osos");
+        conUrl = new ArrayList<>(cantidad);
+        conBase64 = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            conUrl.add(producto(i, osos, "/api/productos/imagenes/" + Long.toHexString(random.nextLong()) + ".jpg"));
+            conBase64.add(producto(i, osos, dataUrl));
+        }
+    }
+
+    @Benchmark
+    public byte[] listaConUrlDeImagen() throws Exception {
+        return objectMapper.writeValueAsBytes(conUrl);
+    }
+
+    @Benchmark
+    public byte[] listaConImagenBase64() throws Exception {
+        return objectMapper.writeValueAsBytes(conBase64);
+    }
+
+    private static Producto producto(int i, Categoria categoria, String urlImagen) {
+        Producto p = new Producto();
+        p.setId((long) i + 1);
+        p.setNombre("Peluche " + i);
+        p.setDescripcion("Peluche suave y abrazable, ideal para regalar. Modelo " + i);
+        p.setPrecio(9990.0 + i);
+        p.setStock(10 + i % 7);
+        p.setOnSale(i % 3 == 0);
+        p.setDiscountPercentage(i % 3 == 0 ? 0.2 : 0.0);
+        p.setCategoria(categoria);
+        p.setUrlImagen(urlImagen);
+        return p;
+    }
+}
@@ -0,0 +1,83 @@
+package com.peluchemania.backend.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil (generar / validar) y JwtFilter completo por petición:
+ * token ya verificado (caché), token nuevo (firma HMAC) y token manipulado.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Thread)
+public class JwtBenchmark {
+
+    private final JwtUtil jwtUtil = new JwtUtil();
+    private final UserDetails usuario = new User("cliente@gmail.com", "x", List.of(new SimpleGrantedAuthority("ROLE_CLIENTE")));
+
+    private String token;
+    private String tokenManipulado;
+    private JwtFilter filtro;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void preparar() {
+        token = jwtUtil.generateToken(usuario);
+        tokenManipulado = token.substring(0, token.length() - 2) + "xx";
+        filtro = new JwtFilter();
+        ReflectionTestUtils.setField(filtro, "jwtUtil", jwtUtil);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public String generarToken() {
+        return jwtUtil.generateToken(usuario);
+    }
+
+    @Benchmark
+    public Boolean validarToken() {
+        return jwtUtil.validateToken(token, usuario);
+    }
+
+    // El camino de casi todas las peticiones: el token ya está en la caché de verificados
+    @Benchmark
+    public void filtroTokenEnCache(Blackhole bh) throws Exception {
+        bh.consume(filtrar(filtro, token));
+    }
+
+    // Primera petición con un token: se verifica la firma (filtro sin caché caliente)
+    @Benchmark
+    public void filtroTokenNuevo(Blackhole bh) throws Exception {
+        JwtFilter frio = new JwtFilter();
+        ReflectionTestUtils.setField(frio, "jwtUtil", jwtUtil);
+        bh.consume(filtrar(frio, token));
+    }
+
+    @Benchmark
+    public void filtroTokenManipulado(Blackhole bh) throws Exception {
+        bh.consume(filtrar(filtro, tokenManipulado));
+    }
+
+    private Object filtrar(JwtFilter f, String t) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/boletas");
+        request.addHeader("Authorization", "Bearer " + t);
+        f.doFilter(request, response, new MockFilterChain());
+        Object autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return autenticacion;
+    }
+}
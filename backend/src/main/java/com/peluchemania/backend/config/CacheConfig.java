@@ -0,0 +1,23 @@
+package com.peluchemania.backend.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Caché en memoria (Caffeine) del catálogo público.
+ * Tamaño, TTL y estadísticas se configuran en application.properties (spring.cache.*).
+ * La caché va por fuera de @Transactional: un acierto responde sin abrir transacción ni pedir conexión,
+ * y solo la recarga corre dentro de la transacción del método.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    // Nombres de las cachés del catálogo
+    public static final String PRODUCTOS = "productos";
+    public static final String PRODUCTO = "producto";
+    public static final String PRODUCTOS_POR_CATEGORIA = "productosPorCategoria";
+    public static final String CATALOGO = "catalogo";
+    public static final String CATEGORIAS = "categorias";
+}
@@ -0,0 +1,140 @@
+package com.peluchemania.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * Sentencias SQL por petición: métrica http.server.requests.sql (por método y ruta),
+ * cabecera X-Consultas-Sql en la respuesta y un WARN con la consulta más repetida
+ * cuando se pasa del presupuesto (observabilidad.sql.presupuesto). Así un N+1 se ve en producción.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConsultasSqlFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "X-Consultas-Sql";
+
+    private static final Logger log = LoggerFactory.getLogger(ConsultasSqlFilter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${observabilidad.sql.presupuesto:15}")
+    private int presupuesto;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContadorSql.Medicion medicion = ContadorSql.iniciar();
+        ConCabecera respuesta = new ConCabecera(response, medicion);
+        try {
+            chain.doFilter(request, respuesta);
+        } finally {
+            ContadorSql.terminar(medicion);
+            // Sin cuerpo (204, 404...) la cabecera aún no se ha escrito
+            respuesta.ponerCabecera();
+            registrar(request, medicion);
+        }
+    }
+
+    private void registrar(HttpServletRequest request, ContadorSql.Medicion medicion) {
+        // La plantilla de la ruta (/api/productos/{id}) y no la URL: acota el número de series
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = patron != null ? patron.toString() : "UNKNOWN";
+        String metodo = request.getMethod();
+
+        DistributionSummary.builder("http.server.requests.sql")
+                .description("Sentencias SQL ejecutadas por petición")
+                .baseUnit("sentencias")
+                .tags("method", metodo, "uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(medicion.sentencias());
+
+        if (medicion.sentencias() > presupuesto) {
+            Counter.builder("http.server.requests.sql.excedidas")
+                    .description("Peticiones que superaron el presupuesto de sentencias SQL")
+                    .tags("method", metodo, "uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            Map.Entry<String, Integer> masRepetida = medicion.masRepetida();
+            log.warn("{} {} ejecutó {} sentencias SQL (presupuesto {}). Más repetida ({}x): {}",
+                    metodo, uri, medicion.sentencias(), presupuesto, masRepetida.getValue(), masRepetida.getKey());
+        }
+    }
+
+    // Escribe la cabecera justo antes de que empiece el cuerpo (después ya no se puede)
+    private static final class ConCabecera extends HttpServletResponseWrapper {
+
+        private final ContadorSql.Medicion medicion;
+        private boolean puesta;
+
+        ConCabecera(HttpServletResponse response, ContadorSql.Medicion medicion) {
+            super(response);
+            this.medicion = medicion;
+        }
+
+        void ponerCabecera() {
+            if (!puesta && !isCommitted()) {
+                setIntHeader(CABECERA, medicion.sentencias());
+            }
+            puesta = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            ponerCabecera();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            ponerCabecera();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            ponerCabecera();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            ponerCabecera();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            ponerCabecera();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            ponerCabecera();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.peluchemania.backend.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cuenta las sentencias SQL que ejecuta el hilo actual entre {@link #iniciar()} y {@link #terminar(Medicion)}.
+ * <p>
+ * El DataSource se envuelve con {@link #envolver(DataSource)}: así se cuentan por igual las consultas de
+ * Hibernate, de Spring Data y de JdbcTemplate. Un batch cuenta como una sentencia (es un solo viaje a MySQL).
+ * Lo que corre en otros hilos (flush del ledger, escritor de pedidos) no se atribuye a la petición.
+ */
+public final class ContadorSql {
+
+    // SQL distintos que se guardan por medición (el total se cuenta siempre)
+    private static final int MAX_SQL_DISTINTOS = 100;
+
+    private static final Set<String> EJECUCIONES = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private static final ThreadLocal<Medicion> ACTUAL = new ThreadLocal<>();
+
+    // true cuando algún DataSource ya pasa por el contador (sin él toda medición daría 0)
+    private static volatile boolean instalado;
+
+    private ContadorSql() {
+    }
+
+    // Sentencias ejecutadas durante una medición, agrupadas por texto SQL
+    public static final class Medicion {
+
+        private final Medicion anterior;
+        private int sentencias;
+        private final Map<String, Integer> porSql = new LinkedHashMap<>();
+
+        private Medicion(Medicion anterior) {
+            this.anterior = anterior;
+        }
+
+        public int sentencias() {
+            return sentencias;
+        }
+
+        // SQL -> veces ejecutado, en orden de primera aparición
+        public Map<String, Integer> porSql() {
+            return Collections.unmodifiableMap(porSql);
+        }
+
+        // La sentencia más repetida: en un N+1 es la consulta que está dentro del loop
+        public Map.Entry<String, Integer> masRepetida() {
+            return porSql.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+        }
+
+        private void registrar(String sql) {
+            sentencias++;
+            if (porSql.containsKey(sql) || porSql.size() < MAX_SQL_DISTINTOS) {
+                porSql.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+
+    // 1. Empieza a contar en el hilo actual (las mediciones se pueden anidar: la externa también cuenta)
+    public static Medicion iniciar() {
+        Medicion medicion = new Medicion(ACTUAL.get());
+        ACTUAL.set(medicion);
+        return medicion;
+    }
+
+    // 2. Deja de contar y restaura la medición externa, si había
+    public static void terminar(Medicion medicion) {
+        if (medicion.anterior == null) {
+            ACTUAL.remove();
+        } else {
+            ACTUAL.set(medicion.anterior);
+        }
+    }
+
+    public static boolean instalado() {
+        return instalado;
+    }
+
+    // Medición en curso del hilo actual (null si no se está midiendo)
+    public static Medicion actual() {
+        return ACTUAL.get();
+    }
+
+    public static DataSource envolver(DataSource dataSource) {
+        return dataSource instanceof DataSourceContador ? dataSource : new DataSourceContador(dataSource);
+    }
+
+    private static void registrar(String sql) {
+        for (Medicion m = ACTUAL.get(); m != null; m = m.anterior) {
+            m.registrar(sql);
+        }
+    }
+
+    // DelegatingDataSource mantiene unwrap(): Actuator sigue viendo el HikariDataSource para sus métricas
+    static final class DataSourceContador extends DelegatingDataSource {
+
+        DataSourceContador(DataSource destino) {
+            super(destino);
+            instalado = true;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return conexion(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return conexion(super.getConnection(username, password));
+        }
+    }
+
+    private static Connection conexion(Connection destino) {
+        return (Connection) Proxy.newProxyInstance(ContadorSql.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    Object resultado = invocar(proxy, destino, metodo, args);
+                    if (resultado instanceof Statement statement) {
+                        // prepareStatement/prepareCall traen el SQL; createStatement lo recibe al ejecutar
+                        String sql = metodo.getName().startsWith("prepare") ? (String) args[0] : null;
+                        return sentencia(statement, sql);
+                    }
+                    return resultado;
+                });
+    }
+
+    private static Statement sentencia(Statement destino, String sqlPreparado) {
+        Class<?> tipo = destino instanceof CallableStatement ? CallableStatement.class
+                : destino instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(ContadorSql.class.getClassLoader(), new Class<?>[]{tipo},
+                (proxy, metodo, args) -> {
+                    if (EJECUCIONES.contains(metodo.getName())) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String texto ? texto : sqlPreparado;
+                        registrar(sql != null ? sql : "(batch)");
+                    }
+                    return invocar(proxy, destino, metodo, args);
+                });
+    }
+
+    private static Object invocar(Object proxy, Object destino, Method metodo, Object[] args) throws Throwable {
+        // Identidad del proxy: Hibernate guarda los statements abiertos en mapas y los busca por equals/hashCode
+        if (metodo.getName().equals("equals") && metodo.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (metodo.getName().equals("hashCode") && metodo.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
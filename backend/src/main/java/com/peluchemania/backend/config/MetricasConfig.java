@@ -0,0 +1,27 @@
+package com.peluchemania.backend.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Instrumentación (Actuator + Micrometer). Latencia por ruta, pool Hikari y estadísticas de Hibernate
+ * salen de la autoconfiguración (ver management.* en application.properties); aquí se agrega
+ * el conteo de sentencias SQL por petición (ver {@link ContadorSql} y {@link ConsultasSqlFilter}).
+ */
+@Configuration
+public class MetricasConfig {
+
+    // static: el post-procesador debe existir antes que el DataSource que envuelve
+    @Bean
+    public static BeanPostProcessor contadorSqlPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? ContadorSql.envolver(dataSource) : bean;
+            }
+        };
+    }
+}
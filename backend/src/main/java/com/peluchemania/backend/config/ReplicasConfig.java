@@ -0,0 +1,123 @@
+package com.peluchemania.backend.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecturas a réplicas, escrituras a la primaria. Solo se activa si hay datasource.replicas.urls;
+ * sin eso queda el DataSource único de la autoconfiguración.
+ * <p>
+ * LazyConnectionDataSourceProxy no pide la conexión física hasta la primera sentencia. Para entonces
+ * la transacción ya marcó la conexión como readOnly (los métodos de lectura de Spring Data corren así,
+ * igual que @Transactional(readOnly = true)) y el proxy la saca de {@link ReplicasDataSource}.
+ * Todo lo demás, incluida una transacción que lee y escribe, va a la primaria.
+ * <p>
+ * Lo que no tolera una réplica atrasada (recargar las cachés del catálogo, el historial de compras
+ * recién hecho, leer una entidad para editarla) corre en una transacción sin readOnly para quedarse
+ * en la primaria.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replicas.urls")
+public class ReplicasConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties propiedades, Environment environment,
+                                 ObjectProvider<MeterRegistry> registros,
+                                 @Value("${datasource.replicas.urls}") List<String> urls,
+                                 @Value("${datasource.replicas.username:}") String usuario,
+                                 @Value("${datasource.replicas.password:}") String clave,
+                                 @Value("${datasource.replicas.retraso-maximo:5s}") Duration retrasoMaximo,
+                                 @Value("${datasource.replicas.intervalo-verificacion:2s}") Duration intervalo,
+                                 @Value("${datasource.replicas.consulta-retraso:}") String consultaRetraso) {
+        // Mismos ajustes de pool (spring.datasource.hikari.*) para la primaria y cada réplica
+        HikariConfig base = new HikariConfig();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(base));
+        MeterRegistry registro = registros.getIfAvailable();
+
+        HikariConfig configPrimaria = copia(base, "primaria", propiedades.determineUrl(),
+                propiedades.determineUsername(), propiedades.determinePassword(), registro);
+        configPrimaria.setDriverClassName(propiedades.determineDriverClassName());
+        HikariDataSource primaria = new HikariDataSource(configPrimaria);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i).trim();
+            HikariConfig config = copia(base, "replica-" + (i + 1), url,
+                    usuario.isEmpty() ? propiedades.determineUsername() : usuario,
+                    usuario.isEmpty() ? propiedades.determinePassword() : clave, registro);
+            config.setDriverClassName(DatabaseDriver.fromJdbcUrl(url).getDriverClassName());
+            config.setReadOnly(true);
+            // La app arranca aunque una réplica esté caída: sus lecturas van a la primaria mientras tanto
+            config.setInitializationFailTimeout(-1);
+            replicas.put(config.getPoolName(), new HikariDataSource(config));
+        }
+
+        ReplicasDataSource lecturas = new ReplicasDataSource(primaria, replicas, retrasoMaximo, consultaRetraso);
+        lecturas.iniciar(intervalo);
+        if (registro != null) {
+            Gauge.builder("db.replicas.sanas", lecturas, ReplicasDataSource::sanas)
+                    .description("Réplicas que hoy reciben lecturas")
+                    .register(registro);
+            FunctionCounter.builder("db.replicas.lecturas.primaria", lecturas, ReplicasDataSource::lecturasEnPrimaria)
+                    .description("Lecturas readOnly servidas por la primaria por falta de réplicas sanas")
+                    .register(registro);
+        }
+        return new Enrutador(primaria, lecturas);
+    }
+
+    private static HikariConfig copia(HikariConfig base, String nombre, String url, String usuario, String clave,
+                                      MeterRegistry registro) {
+        HikariConfig config = new HikariConfig();
+        base.copyStateTo(config);
+        config.setPoolName(nombre);
+        config.setJdbcUrl(url);
+        config.setUsername(usuario);
+        config.setPassword(clave);
+        if (registro != null) {
+            config.setMetricRegistry(registro); // hikaricp_* con tag pool=primaria, replica-1...
+        }
+        return config;
+    }
+
+    // AutoCloseable para que Spring cierre los pools al apagar
+    static final class Enrutador extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final DataSource primaria;
+        private final ReplicasDataSource replicas;
+
+        Enrutador(DataSource primaria, ReplicasDataSource replicas) {
+            super(primaria);
+            setReadOnlyDataSource(replicas);
+            this.primaria = primaria;
+            this.replicas = replicas;
+        }
+
+        @Override
+        public void close() throws Exception {
+            replicas.close();
+            if (primaria instanceof AutoCloseable cerrable) {
+                cerrable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.peluchemania.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lado de lectura del enrutamiento (ver {@link ReplicasConfig}): reparte las conexiones de las
+ * transacciones readOnly entre las réplicas sanas y, si no queda ninguna, las saca de la primaria.
+ * <p>
+ * Una réplica deja de estar sana si no responde o si su retraso supera el máximo tolerado,
+ * y vuelve sola cuando la verificación periódica la encuentra bien. Arranca como no sana:
+ * hasta la primera verificación las lecturas van a la primaria.
+ */
+public class ReplicasDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicasDataSource.class);
+
+    // Columna de SHOW REPLICA STATUS (MySQL 8.0.22+); con otra consulta se usa la primera columna
+    private static final String COLUMNA_RETRASO_MYSQL = "Seconds_Behind_Source";
+
+    static final class Replica {
+        final String nombre;
+        final DataSource dataSource;
+        volatile boolean sana;
+        volatile Long retrasoSegundos;
+
+        Replica(String nombre, DataSource dataSource) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final DataSource primaria;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long retrasoMaximoSegundos;
+    private final String consultaRetraso;
+    private final AtomicInteger turno = new AtomicInteger();
+    private final AtomicLong lecturasEnPrimaria = new AtomicLong();
+    private final ScheduledExecutorService verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "replicas-salud");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public ReplicasDataSource(DataSource primaria, Map<String, DataSource> replicas,
+                              Duration retrasoMaximo, String consultaRetraso) {
+        this.primaria = primaria;
+        replicas.forEach((nombre, dataSource) -> this.replicas.add(new Replica(nombre, dataSource)));
+        this.retrasoMaximoSegundos = retrasoMaximo.toSeconds();
+        this.consultaRetraso = consultaRetraso == null ? "" : consultaRetraso.trim();
+    }
+
+    public void iniciar(Duration intervalo) {
+        verificador.scheduleWithFixedDelay(this::verificar, 0, intervalo.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Round-robin entre las sanas; una que falla al pedir conexión queda fuera hasta la próxima verificación
+    @Override
+    public Connection getConnection() throws SQLException {
+        int inicio = Math.floorMod(turno.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((inicio + i) % replicas.size());
+            if (!replica.sana) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                marcar(replica, false, "sin conexión: " + e.getMessage());
+            }
+        }
+        lecturasEnPrimaria.incrementAndGet();
+        return primaria.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Las réplicas usan las credenciales de su propio pool");
+    }
+
+    // 1. Pedir una conexión  2. Medir el retraso  3. Sacar o devolver la réplica al reparto
+    public void verificar() {
+        for (Replica replica : replicas) {
+            try (Connection conexion = replica.dataSource.getConnection()) {
+                Long retraso = medirRetraso(conexion);
+                replica.retrasoSegundos = retraso;
+                if (retraso == null) {
+                    marcar(replica, false, "replicación detenida");
+                } else if (retraso > retrasoMaximoSegundos) {
+                    marcar(replica, false, "retraso de " + retraso + " s (máximo " + retrasoMaximoSegundos + " s)");
+                } else {
+                    marcar(replica, true, "retraso de " + retraso + " s");
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.retrasoSegundos = null;
+                marcar(replica, false, "no responde: " + e.getMessage());
+            }
+        }
+    }
+
+    public int sanas() {
+        return (int) replicas.stream().filter(r -> r.sana).count();
+    }
+
+    // Lecturas que debieron ir a una réplica pero terminaron en la primaria (todas caídas o atrasadas)
+    public long lecturasEnPrimaria() {
+        return lecturasEnPrimaria.get();
+    }
+
+    @Override
+    public void close() {
+        verificador.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable cerrable) {
+                try {
+                    cerrable.close();
+                } catch (Exception e) {
+                    log.warn("No se pudo cerrar la réplica {}", replica.nombre, e);
+                }
+            }
+        }
+    }
+
+    // Segundos de retraso, o null si la réplica dice que no está replicando
+    private Long medirRetraso(Connection conexion) throws SQLException {
+        if (consultaRetraso.isEmpty()) {
+            if (!conexion.isValid(2)) {
+                throw new SQLException("isValid() devolvió false");
+            }
+            return 0L;
+        }
+        try (Statement sentencia = conexion.createStatement();
+             ResultSet filas = sentencia.executeQuery(consultaRetraso)) {
+            if (!filas.next()) {
+                // Sin filas: no hay replicación nativa que consultar (ej: réplica administrada); basta con que responda
+                return 0L;
+            }
+            long retraso = filas.getLong(columnaRetraso(filas.getMetaData()));
+            return filas.wasNull() ? null : retraso;
+        }
+    }
+
+    private static int columnaRetraso(ResultSetMetaData columnas) throws SQLException {
+        for (int i = 1; i <= columnas.getColumnCount(); i++) {
+            if (COLUMNA_RETRASO_MYSQL.equalsIgnoreCase(columnas.getColumnLabel(i))) {
+                return i;
+            }
+        }
+        return 1;
+    }
+
+    private static void marcar(Replica replica, boolean sana, String motivo) {
+        if (replica.sana == sana) {
+            return;
+        }
+        replica.sana = sana;
+        if (sana) {
+            log.info("Réplica {} vuelve al reparto de lecturas ({})", replica.nombre, motivo);
+        } else {
+            log.warn("Réplica {} fuera del reparto de lecturas: {}", replica.nombre, motivo);
+        }
+    }
+}
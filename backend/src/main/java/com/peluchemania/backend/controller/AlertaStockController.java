@@ -0,0 +1,77 @@
+package com.peluchemania.backend.controller;
+
+import com.peluchemania.backend.repository.CategoriaRepository;
+import com.peluchemania.backend.repository.ProductoRepository;
+import com.peluchemania.backend.service.AlertaStockService;
+import com.peluchemania.backend.service.CatalogoCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+// Alertas de stock bajo para el panel de admin (reemplaza el polling de /api/productos/low-stock)
+@RestController
+@RequestMapping("/api/alertas-stock")
+public class AlertaStockController {
+
+    @Autowired
+    private AlertaStockService alertaStockService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    // 1. ALERTAS ACTUALES
+    @GetMapping
+    public List<AlertaStockService.AlertaStock> listar() {
+        return alertaStockService.alertas();
+    }
+
+    // 2. STREAM SSE: primero "estado" (alertas actuales) y luego "stock-bajo" / "stock-normal" en cada cruce
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return alertaStockService.suscribir();
+    }
+
+    // 3. UMBRAL DE UN PRODUCTO: {"umbral": 10} (null = usar el de la categoría)
+    @PutMapping("/umbrales/productos/{id}")
+    public ResponseEntity<Void> umbralProducto(@PathVariable Long id, @RequestBody Map<String, Integer> cuerpo) {
+        if (productoRepository.actualizarUmbralStockBajo(id, validar(cuerpo.get("umbral"))) == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        catalogoCache.productoModificado(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // 4. UMBRAL DE UNA CATEGORÍA: {"umbral": 3} (null = usar el global)
+    @PutMapping("/umbrales/categorias/{id}")
+    public ResponseEntity<Void> umbralCategoria(@PathVariable Long id, @RequestBody Map<String, Integer> cuerpo) {
+        if (categoriaRepository.actualizarUmbralStockBajo(id, validar(cuerpo.get("umbral"))) == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        catalogoCache.categoriasModificadas();
+        alertaStockService.categoriaModificada(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> manejarUmbralInvalido(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private static Integer validar(Integer umbral) {
+        if (umbral != null && umbral < 0) {
+            throw new IllegalArgumentException("El umbral no puede ser negativo");
+        }
+        return umbral;
+    }
+}
@@ -1,23 +1,40 @@
 package com.peluchemania.backend.controller;
 
+import com.peluchemania.backend.dto.CursorBoleta;
+import com.peluchemania.backend.dto.PaginaCursor;
 import com.peluchemania.backend.entity.Boleta;
 import com.peluchemania.backend.entity.DetalleBoleta;
 import com.peluchemania.backend.repository.BoletaRepository;
 import com.peluchemania.backend.repository.DetalleBoletaRepository;
+import com.peluchemania.backend.service.BoletaExportService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*; // Importa todo para asegurar @PathVariable
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/boletas")
 public class BoletaController {
 
+    private static final int LIMITE_POR_DEFECTO = 50;
+    private static final int LIMITE_MAXIMO = 500;
+
     @Autowired
     private BoletaRepository boletaRepository;
     
     @Autowired
     private DetalleBoletaRepository detalleBoletaRepository; // <--- Inyectar repositorio de detalles
 
+    @Autowired
+    private BoletaExportService boletaExportService;
+
     // Listar todas las boletas
     @GetMapping
     public List<Boleta> listar() {
@@ -29,4 +46,56 @@ public class BoletaController {
     public List<DetalleBoleta> verDetalles(@PathVariable Long id) {
         return detalleBoletaRepository.findByBoletaId(id);
     }
-}
\ No newline at end of file
+
+    // Listado paginado (más recientes primero) con rango de fechas opcional: ?desde=2025-01-01&hasta=2025-12-31&cursor=&limite=
+    @GetMapping("/pagina")
+    public PaginaCursor<Boleta> listarPagina(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + LIMITE_POR_DEFECTO) int limite) {
+
+        int tamano = Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+        List<Boleta> filas = boletaRepository.buscarPagina(inicioDe(desde), finDe(hasta),
+                CursorBoleta.decodificar(cursor), tamano + 1);
+        if (filas.size() <= tamano) {
+            return new PaginaCursor<>(filas, null);
+        }
+        List<Boleta> pagina = filas.subList(0, tamano);
+        Boleta ultima = pagina.get(tamano - 1);
+        return new PaginaCursor<>(pagina, new CursorBoleta(ultima.getFecha(), ultima.getId()).codificar());
+    }
+
+    // Exportar ventas en streaming: ?formato=csv|ndjson&desde=&hasta= (memoria constante)
+    @GetMapping("/export")
+    public void exportar(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            HttpServletResponse response) throws IOException {
+
+        BoletaExportService.Formato tipo = BoletaExportService.Formato.desde(formato);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(tipo == BoletaExportService.Formato.CSV ? "text/csv" : "application/x-ndjson");
+        response.setHeader("Content-Disposition", "attachment; filename=\"boletas." + tipo.name().toLowerCase() + "\"");
+
+        LocalDateTime inicio = desde != null ? desde.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime fin = hasta != null ? hasta.plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 1, 1, 0, 0);
+        boletaExportService.exportar(inicio, fin, tipo, response.getWriter());
+    }
+
+    // Cursor manipulado o formato de exportación desconocido
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> manejarCursorInvalido(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private static LocalDateTime inicioDe(LocalDate desde) {
+        return desde == null ? null : desde.atStartOfDay();
+    }
+
+    // "hasta" incluye el día completo
+    private static LocalDateTime finDe(LocalDate hasta) {
+        return hasta == null ? null : hasta.plusDays(1).atStartOfDay();
+    }
+}
@@ -0,0 +1,27 @@
+package com.peluchemania.backend.controller;
+
+import com.peluchemania.backend.service.CatalogoCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    // 1. ESTADÍSTICAS DE LA CACHÉ DEL CATÁLOGO (Admin)
+    @GetMapping("/estadisticas")
+    public Map<String, Map<String, Object>> estadisticas() {
+        return catalogoCache.estadisticas();
+    }
+
+    // 2. VACIAR TODA LA CACHÉ DEL CATÁLOGO (Admin)
+    @DeleteMapping
+    public void vaciar() {
+        catalogoCache.categoriasModificadas();
+    }
+}
@@ -1,39 +1,43 @@
 package com.peluchemania.backend.controller;
 
+import com.peluchemania.backend.config.CacheConfig;
 import com.peluchemania.backend.entity.Categoria;
-import com.peluchemania.backend.repository.CategoriaRepository;
+import com.peluchemania.backend.service.CatalogoSerializado;
+import com.peluchemania.backend.service.CategoriaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/categorias")
 public class CategoriaController {
 
     @Autowired
-    private CategoriaRepository categoriaRepository;
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private CatalogoSerializado catalogoSerializado;
 
-    // 1. LISTAR (Público)
+    // 1. LISTAR (Público, bytes ya serializados por versión del catálogo; ver RespuestaCatalogo)
     @GetMapping
-    public List<Categoria> listar() {
-        return categoriaRepository.findAll();
+    public ResponseEntity<byte[]> listar(@RequestHeader HttpHeaders headers) {
+        return RespuestaCatalogo.responder(catalogoSerializado, CacheConfig.CATEGORIAS, headers, categoriaService::listarCategorias);
     }
 
     // 2. CREAR (Admin)
     @PostMapping
     public Categoria crear(@RequestBody Categoria categoria) {
-        return categoriaRepository.save(categoria);
+        return categoriaService.guardarCategoria(categoria);
     }
 
     // 3. EDITAR (Admin) - Nuevo
     @PutMapping("/{id}")
     public ResponseEntity<Categoria> actualizar(@PathVariable Long id, @RequestBody Categoria detalles) {
-        return categoriaRepository.findById(id)
+        return categoriaService.obtenerParaEditar(id)
                 .map(cat -> {
                     cat.setNombre(detalles.getNombre());
-                    return ResponseEntity.ok(categoriaRepository.save(cat));
+                    return ResponseEntity.ok(categoriaService.guardarCategoria(cat));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -41,9 +45,9 @@ public class CategoriaController {
     // 4. ELIMINAR (Admin) - Nuevo
     @DeleteMapping("/{id}")
     public ResponseEntity<Object> eliminar(@PathVariable Long id) {
-        return categoriaRepository.findById(id)
+        return categoriaService.obtenerParaEditar(id)
                 .map(cat -> {
-                    categoriaRepository.delete(cat);
+                    categoriaService.eliminarCategoria(cat);
                     return ResponseEntity.noContent().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -1,81 +1,50 @@
 package com.peluchemania.backend.controller;
 
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.peluchemania.backend.dto.EstadoPedido;
+import com.peluchemania.backend.dto.LineaCompra;
+import com.peluchemania.backend.dto.SolicitudCompra;
 import com.peluchemania.backend.entity.Boleta;
-import com.peluchemania.backend.entity.DetalleBoleta;
-import com.peluchemania.backend.entity.Producto;
-import com.peluchemania.backend.repository.BoletaRepository;
-import com.peluchemania.backend.repository.DetalleBoletaRepository;
-import com.peluchemania.backend.repository.ProductoRepository;
+import com.peluchemania.backend.service.CatalogoCache;
+import com.peluchemania.backend.service.CheckoutService;
+import com.peluchemania.backend.service.IngresoPedidosService;
+import com.peluchemania.backend.service.ProductoInexistenteException;
+import com.peluchemania.backend.service.StockInsuficienteException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/checkout")
 public class CheckoutController {
 
-    @Autowired
-    private BoletaRepository boletaRepository;
+    private static final long ESPERA_MAXIMA_MS = 30_000;
 
     @Autowired
-    private DetalleBoletaRepository detalleBoletaRepository;
+    private CheckoutService checkoutService;
 
     @Autowired
-    private ProductoRepository productoRepository;
+    private CatalogoCache catalogoCache;
+
+    // Solo existe con checkout.asincrono.enabled=true
+    @Autowired(required = false)
+    private IngresoPedidosService ingresoPedidosService;
 
     @PostMapping("/purchase")
-    @SuppressWarnings("unchecked")
-    public ResponseEntity<Map<String, Object>> procesarCompra(@RequestBody Map<String, Object> payload) {
-        
-        // 1. Datos Generales de la Boleta
-        String email = (String) payload.get("userId");
-        Double total = Double.valueOf(payload.get("total").toString());
+    public ResponseEntity<Map<String, Object>> procesarCompra(@RequestBody SolicitudCompra compra) {
         
-        Map<String, String> addr = (Map<String, String>) payload.get("shippingAddress");
-        String direccionStr = (addr != null) ? 
-            addr.get("calle") + ", " + addr.get("comuna") + ", " + addr.get("region") : "Retiro en tienda";
-
-        // 2. Guardar CABECERA (La Boleta en sí)
-        Boleta nuevaBoleta = new Boleta();
-        nuevaBoleta.setUsuarioEmail(email);
-        nuevaBoleta.setTotal(total);
-        nuevaBoleta.setDireccion(direccionStr);
-        nuevaBoleta.setFecha(LocalDateTime.now());
-
-        Boleta boletaGuardada = boletaRepository.save(nuevaBoleta);
-
-        // 3. Guardar DETALLES (Los productos comprados)
-        List<Map<String, Object>> items = (List<Map<String, Object>>) payload.get("cartItems");
-
-        for (Map<String, Object> item : items) {
-            Long prodId = Long.valueOf(item.get("id").toString());
-            Integer cantidad = Integer.valueOf(item.get("quantity").toString());
-            Double precio = Double.valueOf(item.get("precio").toString());
-
-            // Buscar el producto real para vincularlo
-            Producto productoReal = productoRepository.findById(prodId).orElse(null);
-
-            if (productoReal != null) {
-                // Crear registro en tabla DETALLE_BOLETA
-                DetalleBoleta detalle = new DetalleBoleta();
-                detalle.setBoleta(boletaGuardada);
-                detalle.setProducto(productoReal);
-                detalle.setCantidad(cantidad);
-                detalle.setPrecioUnitario(precio);
-                
-                detalleBoletaRepository.save(detalle);
-
-                // EXTRA: Descontar Stock (Muy valorado en rúbrica)
-                int nuevoStock = productoReal.getStock() - cantidad;
-                productoReal.setStock(Math.max(0, nuevoStock)); // Evitar negativos
-                productoRepository.save(productoReal);
-            }
-        }
+        // 1 y 2. Datos generales y líneas del carro: llegan tipados y validados (ver SolicitudCompraDeserializer)
+        // 3. Guardar boleta, detalles y stock en una sola transacción (ver CheckoutService)
+        Boleta boletaGuardada = checkoutService.procesarCompra(
+                compra.userId(), compra.total(), compra.direccionEntrega(), compra.cartItems());
+
+        // El stock cambió: la caché del catálogo ya no sirve para estos productos
+        catalogoCache.stockModificado(compra.cartItems().stream().map(LineaCompra::productoId).distinct().toList());
 
         // 4. Responder
         Map<String, Object> response = new HashMap<>();
@@ -84,4 +53,72 @@ public class CheckoutController {
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    // CHECKOUT ASÍNCRONO: mismo payload que /purchase; responde 202 con el id del pedido apenas el stock queda reservado.
+    // Sin checkout.asincrono.enabled se procesa en el momento y el pedido ya viene CONFIRMADO.
+    @PostMapping("/pedidos")
+    public ResponseEntity<EstadoPedido> ingresarPedido(@RequestBody SolicitudCompra compra) {
+        if (ingresoPedidosService == null) {
+            Boleta boleta = checkoutService.procesarCompra(
+                    compra.userId(), compra.total(), compra.direccionEntrega(), compra.cartItems());
+            catalogoCache.stockModificado(compra.cartItems().stream().map(LineaCompra::productoId).distinct().toList());
+            return ResponseEntity.ok(new EstadoPedido(String.valueOf(boleta.getId()), EstadoPedido.Estado.CONFIRMADO, boleta.getId(), null));
+        }
+        return ResponseEntity.accepted().body(
+                ingresoPedidosService.aceptar(compra.userId(), compra.total(), compra.direccionEntrega(), compra.cartItems()));
+    }
+
+    // Estado del pedido; con ?esperaMs= la respuesta espera (long polling) hasta que se confirme o pase ese tiempo
+    @GetMapping("/pedidos/{id}")
+    public CompletableFuture<ResponseEntity<EstadoPedido>> estadoPedido(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") long esperaMs) {
+        if (ingresoPedidosService == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        long espera = Math.min(Math.max(esperaMs, 0), ESPERA_MAXIMA_MS);
+        CompletableFuture<EstadoPedido> estado = espera == 0
+                ? CompletableFuture.completedFuture(ingresoPedidosService.estado(id))
+                : ingresoPedidosService.esperar(id, espera);
+        if (estado == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        return estado.thenApply(e -> e == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(e));
+    }
+
+    // Sin stock suficiente: la compra se rechaza completa (409) y no se descuenta nada
+    @ExceptionHandler(StockInsuficienteException.class)
+    public ResponseEntity<Map<String, Object>> manejarSinStock(StockInsuficienteException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "No hay stock suficiente para completar la compra");
+        response.put("productosSinStock", e.getProductosSinStock());
+        return ResponseEntity.status(409).body(response);
+    }
+
+    // Productos que no existen: el carro es inválido, no falta stock
+    @ExceptionHandler(ProductoInexistenteException.class)
+    public ResponseEntity<Map<String, Object>> manejarProductoInexistente(ProductoInexistenteException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "El carro tiene productos que no existen");
+        response.put("productosInexistentes", e.getProductosInexistentes());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    // Carro mal formado (ej: cantidades negativas)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> manejarCarroInvalido(IllegalArgumentException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    // JSON inválido o carro fuera de los límites (ver SolicitudCompraDeserializer): 400 con el motivo, sin tocar la BD
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, Object>> manejarCuerpoInvalido(HttpMessageNotReadableException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", e.getMostSpecificCause() instanceof MismatchedInputException invalido
+                ? invalido.getOriginalMessage()
+                : "El cuerpo de la compra no es un JSON válido");
+        return ResponseEntity.badRequest().body(response);
+    }
+}
@@ -0,0 +1,135 @@
+package com.peluchemania.backend.controller;
+
+import com.peluchemania.backend.service.ImagenStorageService;
+import com.peluchemania.backend.service.MiniaturasService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/productos/imagenes")
+public class ImagenController {
+
+    // Atributos de Tomcat para entregar el archivo con sendfile (cero copias en el kernel)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String INMUTABLE = "public, max-age=31536000, immutable";
+
+    @Autowired
+    private ImagenStorageService imagenStorageService;
+
+    @Autowired
+    private MiniaturasService miniaturasService;
+
+    @Value("${imagenes.subida.tamano-maximo:10MB}")
+    private DataSize tamanoMaximo;
+
+    // 1. SUBIR IMAGEN (POST multipart, campo "archivo") - Requiere login. Devuelve la URL que luego se pone
+    // en urlImagen del producto. El archivo va de la parte multipart (ya en disco) al almacén con un buffer fijo
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, String>> subir(@RequestParam("archivo") MultipartFile archivo) throws IOException {
+        if (archivo.isEmpty()) {
+            throw new IllegalArgumentException("El archivo está vacío");
+        }
+        String clave;
+        try (InputStream entrada = archivo.getInputStream()) {
+            clave = imagenStorageService.guardar(entrada, tamanoMaximo.toBytes());
+        }
+        miniaturasService.encolar(clave);
+        String url = ImagenStorageService.PREFIJO_URL + clave;
+        return ResponseEntity.created(URI.create(url)).body(Map.of("clave", clave, "urlImagen", url));
+    }
+
+    // 2. SERVIR IMAGEN ORIGINAL (GET /api/productos/imagenes/{clave}) - Público
+    @GetMapping("/{clave}")
+    public void servir(@PathVariable String clave, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> archivo = imagenStorageService.buscar(clave);
+        if (archivo.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // El nombre ES el hash del contenido: nunca cambia, así que el navegador puede guardarla para siempre
+        enviar(archivo.get(), imagenStorageService.contentTypeDe(clave), "\"" + clave + "\"", INMUTABLE, request, response);
+    }
+
+    // 3. SERVIR VERSIÓN REDUCIDA (GET /api/productos/imagenes/{clave}/{tamano}) - Público. tamano = grid | detalle | zoom
+    @GetMapping("/{clave}/{tamano}")
+    public void servirTamano(@PathVariable String clave, @PathVariable String tamano,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<MiniaturasService.Tamano> version = MiniaturasService.Tamano.desde(tamano);
+        Optional<Path> original = imagenStorageService.buscar(clave);
+        if (version.isEmpty() || original.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Optional<Path> rendicion = imagenStorageService.buscarRendicion(clave, version.get().nombre());
+        if (rendicion.isPresent()) {
+            String nombre = rendicion.get().getFileName().toString();
+            enviar(rendicion.get(), imagenStorageService.contentTypeDe(nombre), "\"" + nombre + "\"", INMUTABLE, request, response);
+            return;
+        }
+
+        // Aún no está lista: se encola y mientras tanto va el original, con caché corta para pedirla de nuevo pronto
+        miniaturasService.encolar(clave);
+        enviar(original.get(), imagenStorageService.contentTypeDe(clave), "\"" + clave + "\"", "public, max-age=60", request, response);
+    }
+
+    // Tipo no reconocido por su firma, archivo vacío o más grande que el máximo
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> manejarImagenInvalida(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private void enviar(Path archivo, String contentType, String etag, String cacheControl,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            response.setContentType(contentType);
+            response.setContentLengthLong(tamano);
+
+            // a) Tomcat con NIO: le pasamos el archivo y él hace FileChannel.transferTo directo al socket
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, archivo.toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, tamano);
+                return;
+            }
+
+            // b) Sin sendfile: transferTo hacia el stream de salida, sin pasar por un byte[] propio
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long enviado = 0;
+            while (enviado < tamano) {
+                enviado += canal.transferTo(enviado, tamano - enviado, salida);
+            }
+        }
+    }
+}
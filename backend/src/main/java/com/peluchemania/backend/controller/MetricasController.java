@@ -0,0 +1,35 @@
+package com.peluchemania.backend.controller;
+
+import com.peluchemania.backend.security.PoolPasswordEncoder;
+import com.peluchemania.backend.service.IngresoPedidosService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metricas")
+public class MetricasController {
+
+    @Autowired
+    private PoolPasswordEncoder poolPasswordEncoder;
+
+    // Solo existe con checkout.asincrono.enabled=true
+    @Autowired(required = false)
+    private IngresoPedidosService ingresoPedidosService;
+
+    // 1. POOL DE HASHING DE CONTRASEÑAS (Admin): cola, rechazos y tiempos por etapa
+    @GetMapping("/hashing")
+    public Map<String, Object> hashing() {
+        return poolPasswordEncoder.estadisticas();
+    }
+
+    // 2. CHECKOUT ASÍNCRONO (Admin): cola, pedidos por lote y rechazos
+    @GetMapping("/pedidos")
+    public ResponseEntity<Map<String, Object>> pedidos() {
+        return ingresoPedidosService == null
+                ? ResponseEntity.notFound().build()
+                : ResponseEntity.ok(ingresoPedidosService.estadisticas());
+    }
+}
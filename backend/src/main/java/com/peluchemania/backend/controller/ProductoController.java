@@ -1,31 +1,73 @@
 package com.peluchemania.backend.controller;
 
+import com.peluchemania.backend.config.CacheConfig;
+import com.peluchemania.backend.dto.CursorCatalogo;
+import com.peluchemania.backend.dto.FiltroCatalogo;
+import com.peluchemania.backend.dto.PaginaCursor;
+import com.peluchemania.backend.dto.ProductoResumen;
 import com.peluchemania.backend.entity.Producto;
 import com.peluchemania.backend.repository.ProductoRepository;
+import com.peluchemania.backend.service.AlertaStockService;
+import com.peluchemania.backend.service.BusquedaProductosService;
+import com.peluchemania.backend.service.CambiosProductoService;
+import com.peluchemania.backend.service.CatalogoSerializado;
+import com.peluchemania.backend.service.ImagenStorageService;
+import com.peluchemania.backend.service.MiniaturasService;
+import com.peluchemania.backend.service.ProductoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/productos")
 public class ProductoController {
 
+    private static final int LIMITE_POR_DEFECTO = 20;
+    private static final int LIMITE_MAXIMO = 100;
+
     @Autowired
     private ProductoRepository productoRepository;
 
-    // 1. LEER TODOS (GET) - Público
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ImagenStorageService imagenStorageService;
+
+    @Autowired
+    private MiniaturasService miniaturasService;
+
+    @Autowired
+    private BusquedaProductosService busquedaProductosService;
+
+    @Autowired
+    private AlertaStockService alertaStockService;
+
+    @Autowired
+    private CambiosProductoService cambiosProductoService;
+
+    @Autowired
+    private CatalogoSerializado catalogoSerializado;
+
+    // 1. LEER TODOS (GET) - Público. Bytes ya serializados por versión del catálogo: JSON, Smile o CBOR según Accept,
+    // gzip si el cliente lo acepta y 304 con If-None-Match (ver RespuestaCatalogo)
     @GetMapping
-    public List<Producto> listar() {
-        return productoRepository.findAll();
+    public ResponseEntity<byte[]> listar(@RequestHeader HttpHeaders headers) {
+        return RespuestaCatalogo.responder(catalogoSerializado, CacheConfig.PRODUCTOS, headers, productoService::listarProductos);
     }
 
-    // 2. LEER UNO POR ID (GET /{id}) - Público
+    // 2. LEER UNO POR ID (GET /{id}) - Público (servido desde caché)
     @GetMapping("/{id}")
-    public ResponseEntity<Producto> obtener(@PathVariable Long id) {
-        return productoRepository.findById(id)
+    public ResponseEntity<ProductoResumen> obtener(@PathVariable Long id) {
+        return productoService.obtenerPorId(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -33,20 +75,24 @@ public class ProductoController {
     // 3. CREAR (POST) - Solo Admin
     @PostMapping
     public Producto crear(@RequestBody Producto producto) {
-        return productoRepository.save(producto);
+        // Si viene una foto en base64 se guarda en disco y el producto queda solo con la URL
+        producto.setUrlImagen(imagenStorageService.normalizarUrlImagen(producto.getUrlImagen()));
+        miniaturasService.encolarUrl(producto.getUrlImagen());
+        return productoService.guardarProducto(producto);
     }
 
     // 4. ACTUALIZAR (PUT) - Solo Admin
     @PutMapping("/{id}")
     public ResponseEntity<Producto> actualizar(@PathVariable Long id, @RequestBody Producto detalles) {
-        return productoRepository.findById(id)
+        return productoService.obtenerParaEditar(id)
                 .map(prod -> {
                     // Actualizar datos básicos
                     prod.setNombre(detalles.getNombre());
                     prod.setDescripcion(detalles.getDescripcion());
                     prod.setPrecio(detalles.getPrecio());
                     prod.setStock(detalles.getStock());
-                    prod.setUrlImagen(detalles.getUrlImagen());
+                    prod.setUrlImagen(imagenStorageService.normalizarUrlImagen(detalles.getUrlImagen()));
+                    miniaturasService.encolarUrl(prod.getUrlImagen());
                     
                     // Actualizar datos de OFERTA
                     prod.setOnSale(detalles.getOnSale());
@@ -57,7 +103,7 @@ public class ProductoController {
                         prod.setCategoria(detalles.getCategoria());
                     }
                     
-                    return ResponseEntity.ok(productoRepository.save(prod));
+                    return ResponseEntity.ok(productoService.guardarProducto(prod));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -65,10 +111,10 @@ public class ProductoController {
     // 5. ELIMINAR (DELETE) - MEJORADO CON MANEJO DE ERRORES
     @DeleteMapping("/{id}")
     public ResponseEntity<?> eliminar(@PathVariable Long id) { // <--- CAMBIO A <?> PARA EVITAR ERROR DE COMPILACIÓN
-        return productoRepository.findById(id)
+        return productoService.obtenerParaEditar(id)
                 .map(prod -> {
                     try {
-                        productoRepository.delete(prod);
+                        productoService.eliminarProducto(prod);
                         return ResponseEntity.noContent().build();
                     } catch (DataIntegrityViolationException e) {
                         // Esto ocurre si intentas borrar un producto que ya está en una boleta
@@ -80,13 +126,67 @@ public class ProductoController {
 
     // 6. BUSCAR POR CATEGORÍA (GET /categoria/{id})
     @GetMapping("/categoria/{id}")
-    public List<Producto> listarPorCategoria(@PathVariable Long id) {
-        return productoRepository.findByCategoriaId(id);
+    public List<ProductoResumen> listarPorCategoria(@PathVariable Long id) {
+        return productoService.listarPorCategoria(id);
     }
 
-    // 7. BUSCAR STOCK CRÍTICO (GET /low-stock)
+    // 7. BUSCAR STOCK CRÍTICO (GET /low-stock) - los ids salen de las alertas en memoria, sin recorrer la tabla
     @GetMapping("/low-stock")
-    public List<Producto> listarStockCritico() {
-        return productoRepository.findByStockLessThan(5);
+    public List<ProductoResumen> listarStockCritico() {
+        Set<Long> ids = alertaStockService.idsEnAlerta();
+        return ids.isEmpty() ? List.of() : productoRepository.findResumenByIdIn(ids);
+    }
+
+    // 8. CATÁLOGO PAGINADO CON CURSOR (GET /catalogo?cursor=&limite=&orden=id|precio&categoriaId=&onSale=&precioMin=&precioMax=)
+    @GetMapping("/catalogo")
+    public PaginaCursor<ProductoResumen> catalogo(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + LIMITE_POR_DEFECTO) int limite,
+            @RequestParam(defaultValue = "id") String orden,
+            @RequestParam(required = false) Long categoriaId,
+            @RequestParam(required = false) Boolean onSale,
+            @RequestParam(required = false) Double precioMin,
+            @RequestParam(required = false) Double precioMax) {
+
+        int tamano = Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+        FiltroCatalogo filtro = new FiltroCatalogo(categoriaId, onSale, precioMin, precioMax, FiltroCatalogo.Orden.desde(orden));
+
+        CursorCatalogo desde = CursorCatalogo.decodificar(cursor);
+        if (desde != null) {
+            desde.validarPara(filtro.orden());
+        }
+
+        // Pedimos una fila extra solo para saber si existe una página siguiente
+        List<ProductoResumen> filas = productoService.buscarCatalogo(filtro, desde, tamano + 1);
+        if (filas.size() <= tamano) {
+            return new PaginaCursor<>(filas, null);
+        }
+        List<ProductoResumen> pagina = filas.subList(0, tamano);
+        return new PaginaCursor<>(pagina, CursorCatalogo.despuesDe(pagina.get(tamano - 1), filtro.orden()).codificar());
+    }
+
+    // 9. BÚSQUEDA / TYPEAHEAD (GET /buscar?q=drag&limite=) - sin tildes ni mayúsculas, cada palabra vale como prefijo
+    @GetMapping("/buscar")
+    public List<ProductoResumen> buscar(@RequestParam("q") String consulta,
+                                        @RequestParam(defaultValue = "" + LIMITE_POR_DEFECTO) int limite) {
+        int tamano = Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+        // El índice entrega ids ordenados por relevancia; cada producto sale de la caché
+        return busquedaProductosService.buscar(consulta, tamano).stream()
+                .map(r -> productoService.obtenerPorId(r.productoId()))
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    // 10. CAMBIOS EN VIVO DE STOCK Y PRECIO (SSE) - el navegador reenvía Last-Event-ID al reconectarse solo
+    @GetMapping(value = "/cambios", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter cambios(@RequestHeader(value = "Last-Event-ID", required = false) Long ultimoEventId,
+                              @RequestParam(required = false) Long desde) {
+        return cambiosProductoService.suscribir(ultimoEventId != null ? ultimoEventId : desde);
+    }
+
+    // Imagen base64 mal formada, tipo no soportado o cursor inválido
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> manejarImagenInvalida(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
     }
 }
@@ -0,0 +1,67 @@
+package com.peluchemania.backend.controller;
+
+import com.peluchemania.backend.dto.VentaCategoriaResumen;
+import com.peluchemania.backend.dto.VentaProductoResumen;
+import com.peluchemania.backend.entity.VentaDiaria;
+import com.peluchemania.backend.repository.VentaCategoriaRepository;
+import com.peluchemania.backend.repository.VentaDiariaRepository;
+import com.peluchemania.backend.repository.VentaProductoRepository;
+import com.peluchemania.backend.service.RollupVentasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Reportes de ventas: solo leen las tablas de rollup (no recorren boletas)
+@RestController
+@RequestMapping("/api/reportes")
+public class ReporteController {
+
+    private static final int TOP_POR_DEFECTO = 10;
+    private static final int TOP_MAXIMO = 100;
+
+    @Autowired
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    @Autowired
+    private VentaProductoRepository ventaProductoRepository;
+
+    @Autowired
+    private VentaCategoriaRepository ventaCategoriaRepository;
+
+    @Autowired
+    private RollupVentasService rollupVentasService;
+
+    // Ventas por día: ?desde=2025-01-01&hasta=2025-01-31 (por defecto, los últimos 30 días)
+    @GetMapping("/ventas-diarias")
+    public List<VentaDiaria> ventasDiarias(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        LocalDate fin = hasta != null ? hasta : LocalDate.now();
+        LocalDate inicio = desde != null ? desde : fin.minusDays(29);
+        return ventaDiariaRepository.findByFechaBetweenOrderByFecha(inicio, fin);
+    }
+
+    // Productos más vendidos por ingresos
+    @GetMapping("/top-productos")
+    public List<VentaProductoResumen> topProductos(@RequestParam(defaultValue = "" + TOP_POR_DEFECTO) int limite) {
+        return ventaProductoRepository.findTop(Limit.of(Math.min(Math.max(limite, 1), TOP_MAXIMO)));
+    }
+
+    // Ventas por categoría
+    @GetMapping("/ventas-categorias")
+    public List<VentaCategoriaResumen> ventasPorCategoria() {
+        return ventaCategoriaRepository.findResumen();
+    }
+
+    // Recalcula los rollups desde las boletas (datos históricos o corrección)
+    @PostMapping("/reconstruir")
+    public ResponseEntity<Void> reconstruir() {
+        rollupVentasService.reconstruir();
+        return ResponseEntity.noContent().build();
+    }
+}
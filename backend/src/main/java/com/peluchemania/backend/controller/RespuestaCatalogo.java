@@ -0,0 +1,100 @@
+package com.peluchemania.backend.controller;
+
+import com.peluchemania.backend.service.CatalogoSerializado;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Respuesta de un listado del catálogo con negociación de formato (Accept: JSON, Smile o CBOR),
+ * gzip ya calculado si el cliente lo acepta, y ETag por contenido (304 sin volver a serializar).
+ */
+final class RespuestaCatalogo {
+
+    private static final String SUFIJO_GZIP = "-gz\"";
+
+    private RespuestaCatalogo() {
+    }
+
+    static ResponseEntity<byte[]> responder(CatalogoSerializado catalogoSerializado, String recurso,
+                                            HttpHeaders peticion, Supplier<?> datos) {
+        CatalogoSerializado.Formato formato = CatalogoSerializado.Formato.segun(peticion.getAccept());
+        boolean aceptaGzip = aceptaGzip(peticion.getOrEmpty(HttpHeaders.ACCEPT_ENCODING));
+
+        // 1. Bytes de la versión actual (se serializan solo si la versión cambió)
+        CatalogoSerializado.Serializado serializado = catalogoSerializado.obtener(recurso, formato, datos);
+
+        // 2. El cliente ya tiene este contenido: 304 con el ETag de la representación que revalidó (plana o gzip)
+        String etag = serializado.etag();
+        Optional<String> coincide = peticion.getIfNoneMatch().stream()
+                .filter(previo -> previo.equals(etag) || previo.equals(conGzip(etag)))
+                .findFirst();
+        if (coincide.isPresent()) {
+            return base(HttpStatus.NOT_MODIFIED).eTag(coincide.get()).build();
+        }
+
+        ResponseEntity.BodyBuilder respuesta = base(HttpStatus.OK).contentType(formato.tipo());
+        if (aceptaGzip && serializado.gzip() != null) {
+            // Con Content-Encoding ya puesto, Tomcat no vuelve a comprimir
+            return respuesta.eTag(conGzip(serializado.etag()))
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(serializado.gzip());
+        }
+        return respuesta.eTag(serializado.etag()).body(serializado.bytes());
+    }
+
+    /**
+     * Accept-Encoding con sus q: "gzip;q=0" es un rechazo explícito. Manda la entrada "gzip" (o "x-gzip")
+     * si existe; si no, la de "*". Sin ninguna de las dos, no se comprime.
+     */
+    static boolean aceptaGzip(List<String> valores) {
+        Double gzip = null;
+        Double comodin = null;
+        for (String valor : valores) {
+            for (String entrada : valor.split(",")) {
+                String[] partes = entrada.split(";");
+                String codificacion = partes[0].trim().toLowerCase(Locale.ROOT);
+                double calidad = calidad(partes);
+                if (codificacion.equals("gzip") || codificacion.equals("x-gzip")) {
+                    gzip = gzip == null ? calidad : Math.max(gzip, calidad);
+                } else if (codificacion.equals("*")) {
+                    comodin = calidad;
+                }
+            }
+        }
+        Double elegida = gzip != null ? gzip : comodin;
+        return elegida != null && elegida > 0;
+    }
+
+    // q=... de una entrada (1 si no viene; un q mal escrito cuenta como 0)
+    private static double calidad(String[] partes) {
+        for (int i = 1; i < partes.length; i++) {
+            String parametro = partes[i].trim();
+            if (parametro.length() > 2 && parametro.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parametro.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static ResponseEntity.BodyBuilder base(HttpStatus estado) {
+        return ResponseEntity.status(estado)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    // La versión comprimida es otra representación: lleva su propio ETag
+    private static String conGzip(String etag) {
+        return etag.substring(0, etag.length() - 1) + SUFIJO_GZIP;
+    }
+}
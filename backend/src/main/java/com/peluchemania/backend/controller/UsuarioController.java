@@ -1,37 +1,72 @@
 package com.peluchemania.backend.controller;
 
+import com.peluchemania.backend.dto.BoletaConDetalles;
+import com.peluchemania.backend.dto.CursorBoleta;
+import com.peluchemania.backend.dto.PaginaCursor;
 import com.peluchemania.backend.entity.Usuario;
 import com.peluchemania.backend.repository.UsuarioRepository;
+import com.peluchemania.backend.service.HistorialComprasService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/users") // Ojo: Tu frontend usa /api/users, no /api/usuarios
 public class UsuarioController {
 
+    private static final int LIMITE_POR_DEFECTO = 20;
+    private static final int LIMITE_MAXIMO = 100;
+    private static final String ROL_ADMIN = "ROLE_ADMIN";
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private HistorialComprasService historialComprasService;
+
     // 1. LISTAR TODOS (Admin)
     @GetMapping
     public List<Usuario> listar() {
         return usuarioRepository.findAll();
     }
 
-    // 2. VER BOLETAS DE UN USUARIO (Simulado por ahora)
+    // 2. VER BOLETAS DE UN USUARIO (más recientes primero, con sus líneas): ?cursor=&limite=
+    // Solo el admin o el propio usuario: las boletas traen direcciones de envío
     @GetMapping("/{id}/boletas")
-    public ResponseEntity<List<Object>> verBoletas(@PathVariable Long id) {
-        // Aquí deberías buscar en BoletaRepository.findByUsuarioId(id)
-        // Por ahora devolvemos lista vacía para que el frontend no falle
-        return ResponseEntity.ok(Collections.emptyList());
+    public ResponseEntity<PaginaCursor<BoletaConDetalles>> verBoletas(
+            @PathVariable Long id,
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + LIMITE_POR_DEFECTO) int limite) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(a -> ROL_ADMIN.equals(a.getAuthority()));
+        Optional<Usuario> usuario = usuarioRepository.findById(id);
+        // Un cliente recibe 403 exista o no el id: así no puede recorrer ids para saber cuáles existen
+        if (!admin && usuario.map(u -> !u.getEmail().equals(authentication.getName())).orElse(true)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return usuario
+                .map(user -> ResponseEntity.ok(historialComprasService.pagina(
+                        user.getEmail(), CursorBoleta.decodificar(cursor), acotar(limite))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // 2b. MIS BOLETAS (el usuario del token)
+    @GetMapping("/me/boletas")
+    public PaginaCursor<BoletaConDetalles> misBoletas(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + LIMITE_POR_DEFECTO) int limite) {
+        return historialComprasService.pagina(authentication.getName(), CursorBoleta.decodificar(cursor), acotar(limite));
     }
 
     // 3. EDITAR USUARIO (Admin)
@@ -82,4 +117,14 @@ public class UsuarioController {
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    // Cursor manipulado
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> manejarCursorInvalido(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private static int acotar(int limite) {
+        return Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.peluchemania.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Boleta del historial con sus líneas ya incluidas (el cliente no pide /detalles por cada una).
+ */
+public record BoletaConDetalles(
+        Long id,
+        LocalDateTime fecha,
+        Double total,
+        String direccion,
+        List<LineaBoleta> lineas) {
+}
@@ -0,0 +1,9 @@
+package com.peluchemania.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila de boleta para exportar: DTO plano, no queda en el contexto de persistencia.
+ */
+public record BoletaResumen(Long id, String usuarioEmail, LocalDateTime fecha, Double total, String direccion) {
+}
@@ -0,0 +1,15 @@
+package com.peluchemania.backend.dto;
+
+/**
+ * Delta compacto del feed de cambios: solo lo que la vitrina necesita refrescar.
+ * "seq" crece siempre; eliminado=true significa que el producto ya no existe (resto en null).
+ */
+public record CambioProducto(
+        long seq,
+        Long id,
+        Double precio,
+        Integer stock,
+        Boolean onSale,
+        Double discountPercentage,
+        boolean eliminado) {
+}
@@ -0,0 +1,8 @@
+package com.peluchemania.backend.dto;
+
+/**
+ * Proyección de solo lectura para el listado de categorías.
+ * Misma forma JSON que la entidad Categoria, pero inmutable: es lo que se guarda en la caché.
+ */
+public record CategoriaResumen(Long id, String nombre, Integer umbralStockBajo) {
+}
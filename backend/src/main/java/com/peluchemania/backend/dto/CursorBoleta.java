@@ -0,0 +1,31 @@
+package com.peluchemania.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posición de la última boleta entregada (keyset por fecha DESC, id DESC).
+ * Viaja al cliente como un string opaco en base64url: "fecha|id".
+ */
+public record CursorBoleta(LocalDateTime fecha, Long id) {
+
+    public String codificar() {
+        String plano = fecha + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Lanza IllegalArgumentException si el cursor fue manipulado
+    public static CursorBoleta decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = plano.indexOf('|');
+            return new CursorBoleta(LocalDateTime.parse(plano.substring(0, separador)), Long.valueOf(plano.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.peluchemania.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición del último producto entregado (keyset).
+ * Viaja al cliente como un string opaco en base64url: "id" o "precio:id".
+ */
+public record CursorCatalogo(Double ultimoPrecio, Long ultimoId) {
+
+    public static CursorCatalogo despuesDe(ProductoResumen producto, FiltroCatalogo.Orden orden) {
+        return new CursorCatalogo(orden == FiltroCatalogo.Orden.PRECIO ? producto.precio() : null, producto.id());
+    }
+
+    // Un cursor de orden=id no trae precio y no sirve para seguir un recorrido por precio
+    public CursorCatalogo validarPara(FiltroCatalogo.Orden orden) {
+        if (orden == FiltroCatalogo.Orden.PRECIO && ultimoPrecio == null) {
+            throw new IllegalArgumentException("Cursor inválido para orden=precio");
+        }
+        return this;
+    }
+
+    public String codificar() {
+        String plano = ultimoPrecio == null ? String.valueOf(ultimoId) : ultimoPrecio + ":" + ultimoId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Lanza IllegalArgumentException si el cursor fue manipulado
+    public static CursorCatalogo decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = plano.indexOf(':');
+            if (separador < 0) {
+                return new CursorCatalogo(null, Long.valueOf(plano));
+            }
+            return new CursorCatalogo(Double.valueOf(plano.substring(0, separador)), Long.valueOf(plano.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
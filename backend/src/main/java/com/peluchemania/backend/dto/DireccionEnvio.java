@@ -0,0 +1,12 @@
+package com.peluchemania.backend.dto;
+
+/**
+ * Dirección de despacho tal como la envía el checkout del frontend.
+ */
+public record DireccionEnvio(String calle, String comuna, String region) {
+
+    // Texto que queda guardado en la boleta
+    public String texto() {
+        return calle + ", " + comuna + ", " + region;
+    }
+}
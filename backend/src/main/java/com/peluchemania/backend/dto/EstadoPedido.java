@@ -0,0 +1,16 @@
+package com.peluchemania.backend.dto;
+
+/**
+ * Estado de un pedido del checkout asíncrono: EN_COLA hasta que su lote se guarda.
+ * boletaId solo viene con CONFIRMADO; mensaje solo con RECHAZADO.
+ */
+public record EstadoPedido(String pedidoId, Estado estado, Long boletaId, String mensaje) {
+
+    public enum Estado {
+        EN_COLA, CONFIRMADO, RECHAZADO
+    }
+
+    public boolean terminado() {
+        return estado != Estado.EN_COLA;
+    }
+}
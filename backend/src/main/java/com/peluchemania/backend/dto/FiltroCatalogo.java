@@ -0,0 +1,26 @@
+package com.peluchemania.backend.dto;
+
+/**
+ * Filtros y orden opcionales del catálogo paginado (null = sin filtro).
+ */
+public record FiltroCatalogo(
+        Long categoriaId,
+        Boolean onSale,
+        Double precioMin,
+        Double precioMax,
+        Orden orden) {
+
+    public enum Orden {
+        ID, PRECIO;
+
+        // "id" o "precio" (sin importar mayúsculas); cualquier otro valor es un error del cliente
+        public static Orden desde(String valor) {
+            for (Orden orden : values()) {
+                if (orden.name().equalsIgnoreCase(valor)) {
+                    return orden;
+                }
+            }
+            throw new IllegalArgumentException("Orden no soportado: " + valor + " (usar id o precio)");
+        }
+    }
+}
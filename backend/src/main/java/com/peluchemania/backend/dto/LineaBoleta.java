@@ -0,0 +1,15 @@
+package com.peluchemania.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Línea de una boleta en el historial del cliente (proyección: sin cargar entidades Producto completas).
+ */
+public record LineaBoleta(
+        @JsonIgnore Long boletaId,
+        Long productoId,
+        String nombre,
+        String urlImagen,
+        Integer cantidad,
+        Double precioUnitario) {
+}
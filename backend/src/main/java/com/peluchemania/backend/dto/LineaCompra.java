@@ -0,0 +1,7 @@
+package com.peluchemania.backend.dto;
+
+/**
+ * Una línea del carro ya convertida a tipos Java.
+ */
+public record LineaCompra(Long productoId, Integer cantidad, Double precio) {
+}
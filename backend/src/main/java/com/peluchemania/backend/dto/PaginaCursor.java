@@ -0,0 +1,9 @@
+package com.peluchemania.backend.dto;
+
+import java.util.List;
+
+/**
+ * Una página del catálogo. "siguienteCursor" es null cuando no hay más resultados.
+ */
+public record PaginaCursor<T>(List<T> items, String siguienteCursor) {
+}
@@ -0,0 +1,34 @@
+package com.peluchemania.backend.dto;
+
+/**
+ * Proyección de solo lectura para los listados del catálogo.
+ * Mantiene la misma forma JSON que Producto (incluida "categoria": {id, nombre})
+ * pero sale de un único SELECT de columnas, sin entidades administradas.
+ */
+public record ProductoResumen(
+        Long id,
+        String nombre,
+        String descripcion,
+        Double precio,
+        Integer stock,
+        Boolean onSale,
+        Double discountPercentage,
+        String urlImagen,
+        CategoriaResumen categoria) {
+
+    // Constructor plano para las expresiones "select new ..." de JPQL
+    public ProductoResumen(Long id, String nombre, String descripcion, Double precio, Integer stock,
+                           Boolean onSale, Double discountPercentage, String urlImagen,
+                           Long categoriaId, String categoriaNombre) {
+        this(id, nombre, descripcion, precio, stock, onSale, discountPercentage, urlImagen,
+                categoriaId == null ? null : new CategoriaResumen(categoriaId, categoriaNombre));
+    }
+
+    // Mismo producto con otro stock (corrección de los listados cacheados tras una compra)
+    public ProductoResumen conStock(Integer nuevoStock) {
+        return new ProductoResumen(id, nombre, descripcion, precio, nuevoStock, onSale, discountPercentage, urlImagen, categoria);
+    }
+
+    public record CategoriaResumen(Long id, String nombre) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.peluchemania.backend.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.util.List;
+
+/**
+ * Cuerpo de POST /api/checkout/purchase y /pedidos. Se lee en una sola pasada con
+ * {@link SolicitudCompraDeserializer}: llega al controlador ya tipado y validado.
+ */
+@JsonDeserialize(using = SolicitudCompraDeserializer.class)
+public record SolicitudCompra(String userId, Double total, DireccionEnvio shippingAddress, List<LineaCompra> cartItems) {
+
+    public static final int MAX_LINEAS = 100;
+    public static final int MAX_CANTIDAD_POR_LINEA = 1_000;
+
+    // Sin dirección de despacho la compra se retira en tienda
+    public String direccionEntrega() {
+        return shippingAddress != null ? shippingAddress.texto() : "Retiro en tienda";
+    }
+}
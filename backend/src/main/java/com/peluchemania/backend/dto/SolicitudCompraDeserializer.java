@@ -0,0 +1,182 @@
+package com.peluchemania.backend.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lee una {@link SolicitudCompra} recorriendo los tokens del JSON una sola vez, sin Map intermedio
+ * ni conversiones por toString(). Los campos que no se usan (el frontend manda el producto completo
+ * en cada línea) se saltan sin crear objetos.
+ * <p>
+ * Todo se valida aquí, antes de tocar la BD: un carro con más de {@link SolicitudCompra#MAX_LINEAS}
+ * líneas se corta al leer la línea siguiente, sin leer el resto.
+ * Los errores salen como MismatchedInputException (Spring responde 400 con el motivo).
+ */
+public class SolicitudCompraDeserializer extends StdDeserializer<SolicitudCompra> {
+
+    public SolicitudCompraDeserializer() {
+        super(SolicitudCompra.class);
+    }
+
+    @Override
+    public SolicitudCompra deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            return invalido(ctxt, "La compra debe ser un objeto JSON");
+        }
+        String userId = null;
+        Double total = null;
+        DireccionEnvio direccion = null;
+        List<LineaCompra> lineas = null;
+
+        for (String campo = p.nextFieldName(); campo != null; campo = p.nextFieldName()) {
+            p.nextToken();
+            switch (campo) {
+                case "userId" -> userId = texto(p);
+                case "total" -> total = decimal(p, ctxt, "total");
+                case "shippingAddress" -> direccion = direccion(p, ctxt);
+                case "cartItems" -> lineas = lineas(p, ctxt);
+                default -> p.skipChildren();
+            }
+        }
+
+        // 1. Datos generales
+        if (userId == null || userId.isBlank()) {
+            return invalido(ctxt, "Falta userId");
+        }
+        if (total == null || total < 0) {
+            return invalido(ctxt, "total debe ser un número mayor o igual a 0");
+        }
+        // 2. Carro
+        if (lineas == null || lineas.isEmpty()) {
+            return invalido(ctxt, "El carro está vacío");
+        }
+        return new SolicitudCompra(userId, total, direccion, lineas);
+    }
+
+    private DireccionEnvio direccion(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            return invalido(ctxt, "shippingAddress debe ser un objeto");
+        }
+        String calle = null;
+        String comuna = null;
+        String region = null;
+        for (String campo = p.nextFieldName(); campo != null; campo = p.nextFieldName()) {
+            p.nextToken();
+            switch (campo) {
+                case "calle" -> calle = texto(p);
+                case "comuna" -> comuna = texto(p);
+                case "region" -> region = texto(p);
+                default -> p.skipChildren();
+            }
+        }
+        return new DireccionEnvio(calle, comuna, region);
+    }
+
+    private List<LineaCompra> lineas(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            return invalido(ctxt, "cartItems debe ser una lista");
+        }
+        List<LineaCompra> lineas = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (lineas.size() == SolicitudCompra.MAX_LINEAS) {
+                return invalido(ctxt, "El carro no puede tener más de " + SolicitudCompra.MAX_LINEAS + " líneas");
+            }
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                return invalido(ctxt, "Cada línea del carro debe ser un objeto");
+            }
+            lineas.add(linea(p, ctxt, lineas.size() + 1));
+        }
+        return lineas;
+    }
+
+    private LineaCompra linea(JsonParser p, DeserializationContext ctxt, int numero) throws IOException {
+        Long id = null;
+        Long cantidad = null;
+        Double precio = null;
+        for (String campo = p.nextFieldName(); campo != null; campo = p.nextFieldName()) {
+            p.nextToken();
+            switch (campo) {
+                case "id" -> id = entero(p, ctxt, "id");
+                case "quantity" -> cantidad = entero(p, ctxt, "quantity");
+                case "precio" -> precio = decimal(p, ctxt, "precio");
+                default -> p.skipChildren();
+            }
+        }
+        if (id == null || id <= 0) {
+            return invalido(ctxt, "Línea " + numero + " del carro: id de producto inválido");
+        }
+        if (cantidad == null || cantidad < 1 || cantidad > SolicitudCompra.MAX_CANTIDAD_POR_LINEA) {
+            return invalido(ctxt, "Línea " + numero + " del carro: quantity debe estar entre 1 y "
+                    + SolicitudCompra.MAX_CANTIDAD_POR_LINEA);
+        }
+        if (precio == null || precio < 0) {
+            return invalido(ctxt, "Línea " + numero + " del carro: precio inválido");
+        }
+        return new LineaCompra(id, cantidad.intValue(), precio);
+    }
+
+    private static String texto(JsonParser p) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_NULL ? null : p.getValueAsString();
+    }
+
+    // Acepta números y, como antes, números escritos como texto ("9990")
+    private Double decimal(JsonParser p, DeserializationContext ctxt, String campo) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+                double valor = p.getDoubleValue();
+                return Double.isFinite(valor) ? valor : invalido(ctxt, campo + " no es un número válido");
+            }
+            case VALUE_STRING -> {
+                try {
+                    double valor = Double.parseDouble(p.getText().trim());
+                    return Double.isFinite(valor) ? valor : invalido(ctxt, campo + " no es un número válido");
+                } catch (NumberFormatException e) {
+                    return invalido(ctxt, campo + " no es un número válido");
+                }
+            }
+            case VALUE_NULL -> {
+                return null;
+            }
+            default -> {
+                return invalido(ctxt, campo + " no es un número válido");
+            }
+        }
+    }
+
+    private Long entero(JsonParser p, DeserializationContext ctxt, String campo) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_NUMBER_INT -> {
+                if (p.getNumberType() != JsonParser.NumberType.INT && p.getNumberType() != JsonParser.NumberType.LONG) {
+                    return invalido(ctxt, campo + " está fuera de rango");
+                }
+                return p.getLongValue();
+            }
+            case VALUE_STRING -> {
+                try {
+                    return Long.parseLong(p.getText().trim());
+                } catch (NumberFormatException e) {
+                    return invalido(ctxt, campo + " debe ser un número entero");
+                }
+            }
+            case VALUE_NULL -> {
+                return null;
+            }
+            default -> {
+                return invalido(ctxt, campo + " debe ser un número entero");
+            }
+        }
+    }
+
+    private <T> T invalido(DeserializationContext ctxt, String motivo) throws IOException {
+        return ctxt.reportInputMismatch(SolicitudCompra.class, motivo);
+    }
+}
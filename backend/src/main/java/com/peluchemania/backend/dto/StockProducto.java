@@ -0,0 +1,7 @@
+package com.peluchemania.backend.dto;
+
+/**
+ * Stock de un producto con su umbral de stock bajo (el propio o el de su categoría; null = el global).
+ */
+public record StockProducto(Long id, String nombre, Integer stock, Integer umbral) {
+}
@@ -0,0 +1,7 @@
+package com.peluchemania.backend.dto;
+
+/**
+ * Ventas acumuladas de una categoría.
+ */
+public record VentaCategoriaResumen(Long categoriaId, String nombre, long unidades, double ingresos) {
+}
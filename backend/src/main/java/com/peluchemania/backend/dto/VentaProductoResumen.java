@@ -0,0 +1,7 @@
+package com.peluchemania.backend.dto;
+
+/**
+ * Fila del ranking de productos más vendidos.
+ */
+public record VentaProductoResumen(Long productoId, String nombre, long unidades, double ingresos) {
+}
@@ -6,10 +6,17 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "boleta")
+@Table(name = "boleta", indexes = {
+        // Listado paginado y exportación por rango de fechas
+        @Index(name = "idx_boleta_fecha_id", columnList = "fecha, id"),
+        // Historial por cliente: igualdad en email y keyset por fecha DESC, id DESC sin ordenar en memoria
+        @Index(name = "idx_boleta_usuario_fecha_id", columnList = "usuario_email, fecha, id")
+})
 public class Boleta {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // SEQUENCE (tabla emulada en MySQL) en vez de IDENTITY para que Hibernate pueda agrupar los INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "boleta_seq")
+    @SequenceGenerator(name = "boleta_seq", sequenceName = "boleta_seq", allocationSize = 50)
     private Long id;
 
     private String usuarioEmail; // Guardamos quién compró
@@ -13,4 +13,7 @@ public class Categoria {
     private Long id;
 
     private String nombre;
+
+    // Umbral de stock bajo para sus productos (null = el global)
+    private Integer umbralStockBajo;
 }
\ No newline at end of file
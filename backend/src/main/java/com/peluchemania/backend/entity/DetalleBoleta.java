@@ -10,7 +10,9 @@ import lombok.Data;
 public class DetalleBoleta {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // SEQUENCE (tabla emulada en MySQL) en vez de IDENTITY para que Hibernate pueda agrupar los INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detalle_boleta_seq")
+    @SequenceGenerator(name = "detalle_boleta_seq", sequenceName = "detalle_boleta_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -24,4 +26,8 @@ public class DetalleBoleta {
 
     private Integer cantidad;
     private Double precioUnitario;
+
+    // false mientras el descuento de stock de esta línea sigue pendiente en el ledger en memoria
+    @JsonIgnore
+    private boolean stockAplicado = true;
 }
\ No newline at end of file
@@ -5,7 +5,12 @@ import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "producto")
+@Table(name = "producto", indexes = {
+        // Índices para la paginación por keyset del catálogo
+        @Index(name = "idx_producto_precio_id", columnList = "precio, id"),
+        @Index(name = "idx_producto_categoria_id", columnList = "categoria_id, id"),
+        @Index(name = "idx_producto_stock", columnList = "stock")
+})
 public class Producto {
 
     @Id
@@ -24,6 +29,10 @@ public class Producto {
     @JoinColumn(name = "categoria_id")
     private Categoria categoria;
 
-    @jakarta.persistence.Column(columnDefinition = "LONGTEXT") // Permite guardar fotos convertidas a texto
+    // Umbral de stock bajo propio; null = el de su categoría o el global (ver AlertaStockService)
+    private Integer umbralStockBajo;
+
+    // Solo una URL corta: las fotos subidas viven en disco (ver ImagenStorageService)
+    @Column(length = 512)
     private String urlImagen;
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.peluchemania.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Rollup: unidades e ingresos acumulados por categoría
+@Data
+@Entity
+@Table(name = "venta_categoria")
+public class VentaCategoria {
+
+    @Id
+    @Column(name = "categoria_id")
+    private Long categoriaId;
+
+    private long unidades;
+    private double ingresos;
+}
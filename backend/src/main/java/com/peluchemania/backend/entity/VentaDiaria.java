@@ -0,0 +1,19 @@
+package com.peluchemania.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+
+// Rollup: ventas acumuladas por día (se actualiza en cada checkout)
+@Data
+@Entity
+@Table(name = "venta_diaria")
+public class VentaDiaria {
+
+    @Id
+    private LocalDate fecha;
+
+    private long boletas;
+    private long unidades;
+    private double ingresos;
+}
@@ -0,0 +1,20 @@
+package com.peluchemania.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Rollup: unidades e ingresos acumulados por producto
+@Data
+@Entity
+@Table(name = "venta_producto", indexes = {
+        @Index(name = "idx_venta_producto_ingresos", columnList = "ingresos")
+})
+public class VentaProducto {
+
+    @Id
+    @Column(name = "producto_id")
+    private Long productoId;
+
+    private long unidades;
+    private double ingresos;
+}
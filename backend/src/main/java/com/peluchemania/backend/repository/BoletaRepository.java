@@ -3,10 +3,11 @@ package com.peluchemania.backend.repository;
 import com.peluchemania.backend.entity.Boleta;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+
 import java.util.List;
 
 @Repository
-public interface BoletaRepository extends JpaRepository<Boleta, Long> {
-    // Para ver historial de un usuario específico (si lo necesitas después)
+public interface BoletaRepository extends JpaRepository<Boleta, Long>, BoletaRepositoryCustom {
+    // Todas las boletas de un usuario (para historiales largos usar buscarPaginaDeUsuario)
     List<Boleta> findByUsuarioEmail(String usuarioEmail);
-}
\ No newline at end of file
+}
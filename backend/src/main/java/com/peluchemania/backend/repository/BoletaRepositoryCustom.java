@@ -0,0 +1,22 @@
+package com.peluchemania.backend.repository;
+
+import com.peluchemania.backend.dto.BoletaResumen;
+import com.peluchemania.backend.dto.CursorBoleta;
+import com.peluchemania.backend.entity.Boleta;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BoletaRepositoryCustom {
+
+    // Página de boletas (más recientes primero) por keyset, con rango de fechas opcional [desde, hasta)
+    List<Boleta> buscarPagina(LocalDateTime desde, LocalDateTime hasta, CursorBoleta cursor, int limite);
+
+    // Historial de un cliente (usa el índice usuario_email, fecha, id)
+    List<Boleta> buscarPaginaDeUsuario(String usuarioEmail, CursorBoleta cursor, int limite);
+
+    // Exportación: cursor de solo avance (en MySQL, fila por fila desde el servidor).
+    // Debe consumirse dentro de una transacción y cerrarse (try-with-resources).
+    Stream<BoletaResumen> streamPorRangoDeFechas(LocalDateTime desde, LocalDateTime hasta);
+}
@@ -0,0 +1,89 @@
+package com.peluchemania.backend.repository;
+
+import com.peluchemania.backend.dto.BoletaResumen;
+import com.peluchemania.backend.dto.CursorBoleta;
+import com.peluchemania.backend.entity.Boleta;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Implementación del fragmento BoletaRepositoryCustom (mismo enfoque que ProductoRepositoryImpl).
+ */
+public class BoletaRepositoryImpl implements BoletaRepositoryCustom {
+
+    // Connector/J solo transmite fila por fila con este fetch size; con cualquier otro (sin useCursorFetch
+    // en la URL, que dejaría cursores de servidor en todas las consultas) trae el resultado entero a memoria
+    private static final int FETCH_SIZE_STREAMING_MYSQL = Integer.MIN_VALUE;
+    // Otras bases (H2 en tests y perfil "carga") no aceptan fetch size negativo
+    private static final int FETCH_SIZE_EXPORTACION = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<BoletaResumen> streamPorRangoDeFechas(LocalDateTime desde, LocalDateTime hasta) {
+        boolean mysql = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof MySQLDialect;
+        return entityManager.createQuery(
+                        "select new com.peluchemania.backend.dto.BoletaResumen(b.id, b.usuarioEmail, b.fecha, b.total, b.direccion) " +
+                        "from Boleta b where b.fecha >= :desde and b.fecha < :hasta order by b.fecha, b.id", BoletaResumen.class)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, mysql ? FETCH_SIZE_STREAMING_MYSQL : FETCH_SIZE_EXPORTACION)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHEABLE, false)
+                .getResultStream();
+    }
+
+    @Override
+    public List<Boleta> buscarPagina(LocalDateTime desde, LocalDateTime hasta, CursorBoleta cursor, int limite) {
+        return buscar(null, desde, hasta, cursor, limite);
+    }
+
+    @Override
+    public List<Boleta> buscarPaginaDeUsuario(String usuarioEmail, CursorBoleta cursor, int limite) {
+        return buscar(usuarioEmail, null, null, cursor, limite);
+    }
+
+    private List<Boleta> buscar(String usuarioEmail, LocalDateTime desde, LocalDateTime hasta, CursorBoleta cursor, int limite) {
+        StringBuilder jpql = new StringBuilder("select b from Boleta b where 1 = 1");
+        Map<String, Object> parametros = new HashMap<>();
+
+        // 1. Cliente y rango de fechas
+        if (usuarioEmail != null) {
+            jpql.append(" and b.usuarioEmail = :usuarioEmail");
+            parametros.put("usuarioEmail", usuarioEmail);
+        }
+        if (desde != null) {
+            jpql.append(" and b.fecha >= :desde");
+            parametros.put("desde", desde);
+        }
+        if (hasta != null) {
+            jpql.append(" and b.fecha < :hasta");
+            parametros.put("hasta", hasta);
+        }
+
+        // 2. Keyset: las boletas anteriores a la última entregada
+        if (cursor != null) {
+            jpql.append(" and (b.fecha < :ultimaFecha or (b.fecha = :ultimaFecha and b.id < :ultimoId))");
+            parametros.put("ultimaFecha", cursor.fecha());
+            parametros.put("ultimoId", cursor.id());
+        }
+
+        jpql.append(" order by b.fecha desc, b.id desc");
+
+        TypedQuery<Boleta> query = entityManager.createQuery(jpql.toString(), Boleta.class);
+        parametros.forEach(query::setParameter);
+        return query.setMaxResults(limite).getResultList();
+    }
+}
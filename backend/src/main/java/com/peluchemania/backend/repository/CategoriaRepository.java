@@ -1,9 +1,23 @@
 package com.peluchemania.backend.repository;
 
+import com.peluchemania.backend.dto.CategoriaResumen;
 import com.peluchemania.backend.entity.Categoria;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
 
 @Repository
 public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
+
+    @Query("select new com.peluchemania.backend.dto.CategoriaResumen(c.id, c.nombre, c.umbralStockBajo) from Categoria c order by c.id")
+    List<CategoriaResumen> findAllResumen();
+
+    @Transactional
+    @Modifying
+    @Query("update Categoria c set c.umbralStockBajo = :umbral where c.id = :id")
+    int actualizarUmbralStockBajo(@Param("id") Long id, @Param("umbral") Integer umbral);
 }
\ No newline at end of file
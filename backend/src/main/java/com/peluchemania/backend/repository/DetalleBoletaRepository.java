@@ -1,12 +1,23 @@
 package com.peluchemania.backend.repository;
 
+import com.peluchemania.backend.dto.LineaBoleta;
 import com.peluchemania.backend.entity.DetalleBoleta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface DetalleBoletaRepository extends JpaRepository<DetalleBoleta, Long> {
-    // Nos servirá si quieres ver el detalle de una venta específica después
-    List<DetalleBoleta> findByBoletaId(Long boletaId);
+    // Detalle de una venta: boleta, producto y categoría en el mismo SELECT (sin uno extra por línea)
+    @Query("select d from DetalleBoleta d join fetch d.boleta left join fetch d.producto p left join fetch p.categoria " +
+           "where d.boleta.id = :boletaId order by d.id")
+    List<DetalleBoleta> findByBoletaId(@Param("boletaId") Long boletaId);
+
+    // Líneas de toda una página de boletas en un solo SELECT (en vez de un findByBoletaId por boleta)
+    @Query("select new com.peluchemania.backend.dto.LineaBoleta(d.boleta.id, p.id, p.nombre, p.urlImagen, d.cantidad, d.precioUnitario) " +
+           "from DetalleBoleta d left join d.producto p where d.boleta.id in :boletaIds order by d.boleta.id, d.id")
+    List<LineaBoleta> findLineasByBoletaIds(@Param("boletaIds") Collection<Long> boletaIds);
 }
\ No newline at end of file
@@ -1,15 +1,86 @@
 package com.peluchemania.backend.repository;
 
+import com.peluchemania.backend.dto.ProductoResumen;
+import com.peluchemania.backend.dto.StockProducto;
 import com.peluchemania.backend.entity.Producto;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
-    
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
+
+    // La categoría (@ManyToOne EAGER) viene en el mismo JOIN: sin esto Hibernate hace 1 SELECT extra por categoría
+    @Override
+    @EntityGraph(attributePaths = "categoria")
+    List<Producto> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "categoria")
+    List<Producto> findAllById(Iterable<Long> ids);
+
+    @EntityGraph(attributePaths = "categoria")
     List<Producto> findByCategoriaId(Long categoriaId);
 
     // ESTA ES LA LÍNEA QUE TE FALTA O ESTÁ MAL ESCRITA:
     List<Producto> findByStockLessThan(Integer stock); 
-}
\ No newline at end of file
+
+    // Solo la columna stock (carga inicial del ledger de inventario)
+    @Query("select p.stock from Producto p where p.id = :id")
+    Integer findStockById(@Param("id") Long id);
+
+    // --- PROYECCIONES PARA LISTADOS (un solo SELECT, sin entidades) ---
+    @Query("select new com.peluchemania.backend.dto.ProductoResumen(" +
+           "p.id, p.nombre, p.descripcion, p.precio, p.stock, p.onSale, p.discountPercentage, p.urlImagen, c.id, c.nombre) " +
+           "from Producto p left join p.categoria c order by p.id")
+    List<ProductoResumen> findAllResumen();
+
+    @Query("select new com.peluchemania.backend.dto.ProductoResumen(" +
+           "p.id, p.nombre, p.descripcion, p.precio, p.stock, p.onSale, p.discountPercentage, p.urlImagen, c.id, c.nombre) " +
+           "from Producto p left join p.categoria c where p.id = :id")
+    Optional<ProductoResumen> findResumenById(@Param("id") Long id);
+
+    @Query("select new com.peluchemania.backend.dto.ProductoResumen(" +
+           "p.id, p.nombre, p.descripcion, p.precio, p.stock, p.onSale, p.discountPercentage, p.urlImagen, c.id, c.nombre) " +
+           "from Producto p left join p.categoria c where p.categoria.id = :categoriaId order by p.id")
+    List<ProductoResumen> findResumenByCategoriaId(@Param("categoriaId") Long categoriaId);
+
+    @Query("select new com.peluchemania.backend.dto.ProductoResumen(" +
+           "p.id, p.nombre, p.descripcion, p.precio, p.stock, p.onSale, p.discountPercentage, p.urlImagen, c.id, c.nombre) " +
+           "from Producto p left join p.categoria c where p.stock < :stock order by p.stock, p.id")
+    List<ProductoResumen> findResumenByStockLessThan(@Param("stock") Integer stock);
+
+    @Query("select new com.peluchemania.backend.dto.ProductoResumen(" +
+           "p.id, p.nombre, p.descripcion, p.precio, p.stock, p.onSale, p.discountPercentage, p.urlImagen, c.id, c.nombre) " +
+           "from Producto p left join p.categoria c where p.id in :ids order by p.stock, p.id")
+    List<ProductoResumen> findResumenByIdIn(@Param("ids") Collection<Long> ids);
+
+    // --- ALERTAS DE STOCK BAJO (umbral = el del producto o, si no tiene, el de su categoría) ---
+    @Query("select new com.peluchemania.backend.dto.StockProducto(p.id, p.nombre, p.stock, coalesce(p.umbralStockBajo, c.umbralStockBajo)) " +
+           "from Producto p left join p.categoria c where p.id in :ids")
+    List<StockProducto> findStockByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Cuáles de estos ids existen (checkout: separar "no existe" de "sin stock")
+    @Query("select p.id from Producto p where p.id in :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.id from Producto p where p.categoria.id = :categoriaId")
+    List<Long> findIdsByCategoriaId(@Param("categoriaId") Long categoriaId);
+
+    // Recorre la tabla: solo se usa una vez al arrancar
+    @Query("select new com.peluchemania.backend.dto.StockProducto(p.id, p.nombre, p.stock, coalesce(p.umbralStockBajo, c.umbralStockBajo)) " +
+           "from Producto p left join p.categoria c where p.stock < coalesce(p.umbralStockBajo, c.umbralStockBajo, :umbralPorDefecto)")
+    List<StockProducto> findBajoUmbral(@Param("umbralPorDefecto") int umbralPorDefecto);
+
+    @Transactional
+    @Modifying
+    @Query("update Producto p set p.umbralStockBajo = :umbral where p.id = :id")
+    int actualizarUmbralStockBajo(@Param("id") Long id, @Param("umbral") Integer umbral);
+}
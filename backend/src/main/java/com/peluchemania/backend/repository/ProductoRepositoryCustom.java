@@ -0,0 +1,18 @@
+package com.peluchemania.backend.repository;
+
+import com.peluchemania.backend.dto.CursorCatalogo;
+import com.peluchemania.backend.dto.FiltroCatalogo;
+import com.peluchemania.backend.dto.ProductoResumen;
+
+import java.util.List;
+import java.util.SortedMap;
+
+public interface ProductoRepositoryCustom {
+
+    // Página del catálogo por keyset: solo filas posteriores al cursor, sin OFFSET
+    List<ProductoResumen> buscarCatalogo(FiltroCatalogo filtro, CursorCatalogo cursor, int limite);
+
+    // Descuenta stock solo si alcanza (UPDATE ... WHERE stock >= ?), todo en un batch JDBC.
+    // Devuelve los ids que NO se pudieron descontar.
+    List<Long> descontarStock(SortedMap<Long, Integer> cantidadesPorProducto);
+}
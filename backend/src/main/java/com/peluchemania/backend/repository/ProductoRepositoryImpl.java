@@ -0,0 +1,108 @@
+package com.peluchemania.backend.repository;
+
+import com.peluchemania.backend.dto.CursorCatalogo;
+import com.peluchemania.backend.dto.FiltroCatalogo;
+import com.peluchemania.backend.dto.ProductoResumen;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Implementación del fragmento ProductoRepositoryCustom.
+ * El JPQL se arma solo con los filtros presentes para que MySQL pueda usar
+ * los índices (precio, id) y (categoria_id, id) en vez de "(:x IS NULL OR ...)".
+ */
+public class ProductoRepositoryImpl implements ProductoRepositoryCustom {
+
+    private static final String SELECT_RESUMEN =
+            "select new com.peluchemania.backend.dto.ProductoResumen(" +
+            "p.id, p.nombre, p.descripcion, p.precio, p.stock, p.onSale, p.discountPercentage, p.urlImagen, c.id, c.nombre) " +
+            "from Producto p left join p.categoria c where 1 = 1";
+
+    // Decremento atómico: la BD comprueba y descuenta en la misma sentencia, sin leer antes en Java
+    private static final String DESCONTAR_STOCK =
+            "update producto set stock = stock - ? where id = ? and stock >= ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductoResumen> buscarCatalogo(FiltroCatalogo filtro, CursorCatalogo cursor, int limite) {
+        StringBuilder jpql = new StringBuilder(SELECT_RESUMEN);
+        Map<String, Object> parametros = new HashMap<>();
+        boolean porPrecio = filtro.orden() == FiltroCatalogo.Orden.PRECIO;
+
+        // 1. Filtros opcionales (por precio solo entran los productos con precio: un NULL rompería el keyset)
+        if (porPrecio) {
+            jpql.append(" and p.precio is not null");
+        }
+        if (filtro.categoriaId() != null) {
+            jpql.append(" and p.categoria.id = :categoriaId");
+            parametros.put("categoriaId", filtro.categoriaId());
+        }
+        if (filtro.onSale() != null) {
+            jpql.append(" and p.onSale = :onSale");
+            parametros.put("onSale", filtro.onSale());
+        }
+        if (filtro.precioMin() != null) {
+            jpql.append(" and p.precio >= :precioMin");
+            parametros.put("precioMin", filtro.precioMin());
+        }
+        if (filtro.precioMax() != null) {
+            jpql.append(" and p.precio <= :precioMax");
+            parametros.put("precioMax", filtro.precioMax());
+        }
+
+        // 2. Keyset: seguir justo después de la última fila entregada
+        if (cursor != null) {
+            if (porPrecio) {
+                jpql.append(" and (p.precio > :ultimoPrecio or (p.precio = :ultimoPrecio and p.id > :ultimoId))");
+                parametros.put("ultimoPrecio", cursor.ultimoPrecio());
+            } else {
+                jpql.append(" and p.id > :ultimoId");
+            }
+            parametros.put("ultimoId", cursor.ultimoId());
+        }
+
+        // 3. Orden estable (el id desempata precios iguales)
+        jpql.append(porPrecio ? " order by p.precio asc, p.id asc" : " order by p.id asc");
+
+        TypedQuery<ProductoResumen> query = entityManager.createQuery(jpql.toString(), ProductoResumen.class);
+        parametros.forEach(query::setParameter);
+        return query.setMaxResults(limite).getResultList();
+    }
+
+    @Override
+    public List<Long> descontarStock(SortedMap<Long, Integer> cantidadesPorProducto) {
+        // Las sentencias pendientes de Hibernate salen antes que el UPDATE directo
+        entityManager.flush();
+        return entityManager.unwrap(Session.class).doReturningWork(conexion -> {
+            List<Long> ids = new ArrayList<>(cantidadesPorProducto.keySet());
+            try (PreparedStatement ps = conexion.prepareStatement(DESCONTAR_STOCK)) {
+                // Orden por id (SortedMap): dos compras concurrentes bloquean filas en el mismo orden y no hay deadlock
+                for (Map.Entry<Long, Integer> entrada : cantidadesPorProducto.entrySet()) {
+                    ps.setInt(1, entrada.getValue());
+                    ps.setLong(2, entrada.getKey());
+                    ps.setInt(3, entrada.getValue());
+                    ps.addBatch();
+                }
+                int[] filas = ps.executeBatch();
+                List<Long> sinStock = new ArrayList<>();
+                for (int i = 0; i < filas.length; i++) {
+                    if (filas[i] < 1) {
+                        sinStock.add(ids.get(i));
+                    }
+                }
+                return sinStock;
+            }
+        });
+    }
+}
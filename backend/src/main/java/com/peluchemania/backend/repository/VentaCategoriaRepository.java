@@ -0,0 +1,17 @@
+package com.peluchemania.backend.repository;
+
+import com.peluchemania.backend.dto.VentaCategoriaResumen;
+import com.peluchemania.backend.entity.VentaCategoria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface VentaCategoriaRepository extends JpaRepository<VentaCategoria, Long> {
+
+    @Query("select new com.peluchemania.backend.dto.VentaCategoriaResumen(v.categoriaId, c.nombre, v.unidades, v.ingresos) " +
+           "from VentaCategoria v left join Categoria c on c.id = v.categoriaId order by v.ingresos desc")
+    List<VentaCategoriaResumen> findResumen();
+}
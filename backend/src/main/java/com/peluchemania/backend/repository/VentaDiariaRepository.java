@@ -0,0 +1,14 @@
+package com.peluchemania.backend.repository;
+
+import com.peluchemania.backend.entity.VentaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface VentaDiariaRepository extends JpaRepository<VentaDiaria, LocalDate> {
+
+    List<VentaDiaria> findByFechaBetweenOrderByFecha(LocalDate desde, LocalDate hasta);
+}
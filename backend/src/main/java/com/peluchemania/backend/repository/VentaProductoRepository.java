@@ -0,0 +1,19 @@
+package com.peluchemania.backend.repository;
+
+import com.peluchemania.backend.dto.VentaProductoResumen;
+import com.peluchemania.backend.entity.VentaProducto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface VentaProductoRepository extends JpaRepository<VentaProducto, Long> {
+
+    // Top N por ingresos (recorre el índice de ingresos, no las boletas)
+    @Query("select new com.peluchemania.backend.dto.VentaProductoResumen(v.productoId, p.nombre, v.unidades, v.ingresos) " +
+           "from VentaProducto v left join Producto p on p.id = v.productoId order by v.ingresos desc")
+    List<VentaProductoResumen> findTop(Limit limite);
+}
@@ -0,0 +1,16 @@
+package com.peluchemania.backend.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * El pool de hashing de contraseñas está lleno: se responde 503 de inmediato
+ * en vez de dejar la petición esperando un hilo.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class HashingSaturadoException extends RuntimeException {
+
+    public HashingSaturadoException(String message) {
+        super(message);
+    }
+}
@@ -1,44 +1,76 @@
 package com.peluchemania.backend.security;
 
-import com.peluchemania.backend.security.service.CustomUserDetailsService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Autenticación por JWT sin consultar la BD: el usuario y su rol salen de los claims del token.
+ * Los tokens ya verificados se guardan en una caché acotada hasta que expiran,
+ * así una petición repetida no vuelve a comprobar la firma.
+ */
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
+    private static final int MAX_TOKENS_EN_CACHE = 10_000;
+
     @Autowired
     private JwtUtil jwtUtil;
 
-    @Autowired
-    private CustomUserDetailsService service;
+    // Usuario ya verificado y momento en que expira su token
+    private record TokenVerificado(UserDetails usuario, long expiraEnMillis) {
+    }
+
+    // Token -> usuario verificado. Cada entrada vive hasta la expiración de su token.
+    private final Cache<String, TokenVerificado> tokensVerificados = Caffeine.newBuilder()
+            .maximumSize(MAX_TOKENS_EN_CACHE)
+            .expireAfter(new Expiry<String, TokenVerificado>() {
+                @Override
+                public long expireAfterCreate(String token, TokenVerificado verificado, long ahora) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, verificado.expiraEnMillis() - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(String token, TokenVerificado verificado, long ahora, long restante) {
+                    return restante;
+                }
+
+                @Override
+                public long expireAfterRead(String token, TokenVerificado verificado, long ahora, long restante) {
+                    return restante;
+                }
+            })
+            .build();
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            username = jwtUtil.extractUsername(token);
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = service.loadUserByUsername(username);
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String token = authHeader.substring(7);
+            TokenVerificado verificado = tokensVerificados.getIfPresent(token);
+            UserDetails userDetails = verificado != null ? verificado.usuario() : verificar(token);
 
-            if (jwtUtil.validateToken(token, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -47,4 +79,22 @@ public class JwtFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // Un solo parseo: firma + expiración + claims. El rol viene en el claim "rol" (ej: ROLE_ADMIN)
+    // Un token firmado pero sin "sub" o sin "rol" de texto no autentica (=> 401), nunca revienta con 500
+    private UserDetails verificar(String token) {
+        Claims claims = jwtUtil.parseValidClaims(token);
+        if (claims == null || claims.getSubject() == null || claims.getSubject().isBlank()
+                || !(claims.get("rol") instanceof String rol) || rol.isBlank()) {
+            return null;
+        }
+        UserDetails userDetails = new User(
+                claims.getSubject(),
+                "", // Sin password: la identidad ya la garantiza la firma del token
+                Collections.singletonList(new SimpleGrantedAuthority(rol)));
+        if (claims.getExpiration() != null) {
+            tokensVerificados.put(token, new TokenVerificado(userDetails, claims.getExpiration().getTime()));
+        }
+        return userDetails;
+    }
+}
@@ -1,6 +1,8 @@
 package com.peluchemania.backend.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -19,8 +21,12 @@ public class JwtUtil {
     // CLAVE SECRETA (IMPORTANTE: Debe ser larga para que funcione con HS256)
     private static final String SECRET_KEY = "PeluchemaniaSecretKeyMuySeguraParaElProyecto123";
 
+    // La clave HMAC y el parser se crean UNA vez (antes se reconstruían en cada llamada)
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        return signingKey;
     }
 
     public String extractUsername(String token) {
@@ -37,11 +43,16 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token).getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // Verifica firma y expiración en UNA sola pasada. Devuelve null si el token no sirve.
+    public Claims parseValidClaims(String token) {
+        try {
+            return extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null; // Firma inválida, expirado o mal formado
+        }
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -62,7 +73,8 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // parseClaimsJws ya rechaza tokens expirados: no hace falta volver a parsear
+        Claims claims = parseValidClaims(token);
+        return claims != null && userDetails.getUsername().equals(claims.getSubject());
     }
-}
\ No newline at end of file
+}
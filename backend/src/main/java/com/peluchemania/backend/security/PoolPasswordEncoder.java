@@ -0,0 +1,135 @@
+package com.peluchemania.backend.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PasswordEncoder que ejecuta BCrypt en un pool propio del tamaño de los núcleos, con cola acotada.
+ * <p>
+ * BCrypt es puro CPU: si corre en los hilos de Tomcat, una ráfaga de logins los ocupa todos
+ * y se cae también el catálogo. Aquí como máximo "hilos + cola" peticiones esperan un hash;
+ * las demás reciben 503 al instante ({@link HashingSaturadoException}).
+ * Lo usan login (vía AuthenticationManager), registro y la edición de usuarios.
+ */
+public class PoolPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMs;
+
+    // --- Métricas por etapa ---
+    private final LongAdder completados = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder esperaEnColaNanos = new LongAdder();
+    private final LongAccumulator esperaEnColaMaxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator hashMaxNanos = new LongAccumulator(Math::max, 0);
+
+    public PoolPasswordEncoder(int strength, int hilos, int capacidadCola, long timeoutMs) {
+        this.bcrypt = new BCryptPasswordEncoder(strength);
+        this.timeoutMs = timeoutMs;
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                r -> {
+                    Thread hilo = new Thread(r, "bcrypt-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar(() -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar(() -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    public Map<String, Object> estadisticas() {
+        long total = Math.max(1, completados.sum());
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("hilos", pool.getMaximumPoolSize());
+        datos.put("activos", pool.getActiveCount());
+        datos.put("enCola", pool.getQueue().size());
+        datos.put("capacidadCola", pool.getQueue().size() + pool.getQueue().remainingCapacity());
+        datos.put("completados", completados.sum());
+        datos.put("rechazados", rechazados.sum());
+        datos.put("timeouts", timeouts.sum());
+        datos.put("esperaEnColaPromedioMs", esperaEnColaNanos.sum() / total / 1_000_000.0);
+        datos.put("esperaEnColaMaxMs", esperaEnColaMaxNanos.get() / 1_000_000.0);
+        datos.put("hashPromedioMs", hashNanos.sum() / total / 1_000_000.0);
+        datos.put("hashMaxMs", hashMaxNanos.get() / 1_000_000.0);
+        return datos;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private <T> T ejecutar(Callable<T> trabajo) {
+        long encolado = System.nanoTime();
+        Future<T> futuro;
+        try {
+            futuro = pool.submit(() -> {
+                long inicio = System.nanoTime();
+                registrar(esperaEnColaNanos, esperaEnColaMaxNanos, inicio - encolado);
+                try {
+                    return trabajo.call();
+                } finally {
+                    registrar(hashNanos, hashMaxNanos, System.nanoTime() - inicio);
+                    completados.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rechazados.increment();
+            throw new HashingSaturadoException("Demasiados inicios de sesión simultáneos, intenta de nuevo en unos segundos");
+        }
+
+        try {
+            return futuro.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            timeouts.increment();
+            throw new HashingSaturadoException("El servicio de autenticación está saturado");
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HashingSaturadoException("Petición interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void registrar(LongAdder total, LongAccumulator maximo, long nanos) {
+        total.add(nanos);
+        maximo.accumulate(nanos);
+    }
+}
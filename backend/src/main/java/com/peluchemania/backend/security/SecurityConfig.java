@@ -1,16 +1,18 @@
 package com.peluchemania.backend.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import jakarta.servlet.DispatcherType;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -36,6 +38,9 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 // Permitir PREFLIGHT (OPTIONS) para que el navegador no bloquee las peticiones
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+
+                // Re-despacho ASYNC de respuestas SSE/streaming: la petición original ya pasó por el JWT
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 
                 // Rutas Públicas
                 .requestMatchers(
@@ -46,6 +51,25 @@ public class SecurityConfig {
                     "/error"
                 ).permitAll()
                 
+                // Métricas: health para el balanceador, el resto (metrics, prometheus) solo admin
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+
+                // Solo admin: los reportes son ventas de toda la tienda y recalcularlos recorre todas las boletas
+                .requestMatchers("/api/reportes/**").hasRole("ADMIN")
+
+                // Solo admin: métricas internas (pool de hashing, checkout asíncrono)
+                .requestMatchers("/api/metricas/**").hasRole("ADMIN")
+
+                // Solo admin: recorrer o exportar las boletas de todos los clientes (email y dirección)
+                .requestMatchers(HttpMethod.GET, "/api/boletas/pagina", "/api/boletas/export").hasRole("ADMIN")
+
+                // Solo admin: vaciar la caché del catálogo obliga a recargarla entera desde la BD
+                .requestMatchers("/api/cache/**").hasRole("ADMIN")
+
+                // Solo admin: alertas de stock bajo (listado, stream SSE y umbrales)
+                .requestMatchers("/api/alertas-stock/**").hasRole("ADMIN")
+
                 // Rutas de Lectura Públicas (Productos y Categorías)
                 .requestMatchers(HttpMethod.GET, "/api/productos/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/categorias/**").permitAll()
@@ -55,6 +79,8 @@ public class SecurityConfig {
                 // el filtro JWT validará el rol automáticamente o puedes restringir más aquí.
                 .anyRequest().authenticated()
             )
+            // Sin token o con un token que no sirve (firma, expiración, sin "sub" o "rol"): 401. Con token válido pero sin el rol: 403
+            .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
             .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -79,9 +105,15 @@ public class SecurityConfig {
         return source;
     }
 
+    // BCrypt en un pool acotado (ver PoolPasswordEncoder y seguridad.hashing.* en application.properties)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PoolPasswordEncoder passwordEncoder(
+            @Value("${seguridad.bcrypt.strength:10}") int strength,
+            @Value("${seguridad.hashing.hilos:0}") int hilos,
+            @Value("${seguridad.hashing.capacidad-cola:32}") int capacidadCola,
+            @Value("${seguridad.hashing.timeout-ms:5000}") long timeoutMs) {
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        return new PoolPasswordEncoder(strength, tamano, capacidadCola, timeoutMs);
     }
 
     @Bean
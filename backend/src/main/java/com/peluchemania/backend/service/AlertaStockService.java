@@ -0,0 +1,160 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.dto.StockProducto;
+import com.peluchemania.backend.repository.ProductoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vigila los cruces de umbral de stock bajo y los empuja por SSE a los paneles de admin.
+ * Solo se revisan los productos que cambiaron (ProductosModificadosEvent, por id): la tabla
+ * completa se recorre una única vez al arrancar. El umbral es el del producto, si no el de su
+ * categoría y si no inventario.stock-bajo.umbral.
+ */
+@Service
+public class AlertaStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertaStockService.class);
+
+    public static final String EVENTO_ESTADO = "estado";
+    public static final String EVENTO_STOCK_BAJO = "stock-bajo";
+    public static final String EVENTO_STOCK_NORMAL = "stock-normal";
+
+    // Producto bajo su umbral (stock null = el producto se eliminó)
+    public record AlertaStock(Long productoId, String nombre, Integer stock, int umbral) {
+    }
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    // Solo existe con inventario.ledger.enabled=true: su contador va por delante de MySQL
+    @Autowired(required = false)
+    private InventarioLedger inventarioLedger;
+
+    @Value("${inventario.stock-bajo.umbral:5}")
+    private int umbralPorDefecto;
+
+    @Value("${inventario.stock-bajo.sse-timeout-ms:1800000}")
+    private long timeoutSseMs;
+
+    private final Map<Long, AlertaStock> enAlerta = new ConcurrentHashMap<>();
+    private DifusorSse difusor;
+    // Un solo hilo: las revisiones salen del hilo del checkout y se aplican en orden
+    private final ScheduledExecutorService evaluador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "alertas-stock");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Después de DataSeeder: estado inicial y latido para que los proxies no corten la conexión
+    @PostConstruct
+    void crearDifusor() {
+        difusor = new DifusorSse(timeoutSseMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        productoRepository.findBajoUmbral(umbralPorDefecto).forEach(s ->
+                enAlerta.put(s.id(), new AlertaStock(s.id(), s.nombre(), stockActual(s), umbralDe(s))));
+        evaluador.scheduleWithFixedDelay(difusor::latido, 25, 25, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        evaluador.shutdownNow();
+        difusor.cerrar();
+    }
+
+    @EventListener
+    public void productosModificados(ProductosModificadosEvent evento) {
+        evaluador.execute(() -> {
+            try {
+                evaluar(evento.productoIds());
+            } catch (RuntimeException e) {
+                log.error("Alertas de stock: no se pudieron revisar los productos {}", evento.productoIds(), e);
+            }
+        });
+    }
+
+    // El umbral de una categoría cambió: se revisan todos sus productos
+    public void categoriaModificada(Long categoriaId) {
+        List<Long> ids = productoRepository.findIdsByCategoriaId(categoriaId);
+        if (!ids.isEmpty()) {
+            productosModificados(new ProductosModificadosEvent(ids));
+        }
+    }
+
+    // Productos bajo el umbral ahora mismo (lo que ve un panel al conectarse)
+    public List<AlertaStock> alertas() {
+        return enAlerta.values().stream()
+                .sorted(Comparator.comparing(AlertaStock::stock, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(AlertaStock::productoId))
+                .toList();
+    }
+
+    public Set<Long> idsEnAlerta() {
+        return Set.copyOf(enAlerta.keySet());
+    }
+
+    public SseEmitter suscribir() {
+        return difusor.suscribir(List.of(SseEmitter.event().name(EVENTO_ESTADO).data(alertas(), MediaType.APPLICATION_JSON)));
+    }
+
+    // Compara el stock actual con el umbral y avisa solo cuando se cruza
+    void evaluar(Collection<Long> ids) {
+        Set<Long> pendientes = new HashSet<>(ids);
+        for (StockProducto s : productoRepository.findStockByIdIn(ids)) {
+            pendientes.remove(s.id());
+            int umbral = umbralDe(s);
+            Integer stock = stockActual(s);
+            if (stock != null && stock < umbral) {
+                AlertaStock alerta = new AlertaStock(s.id(), s.nombre(), stock, umbral);
+                if (enAlerta.put(s.id(), alerta) == null) {
+                    emitir(EVENTO_STOCK_BAJO, alerta);
+                }
+            } else if (enAlerta.remove(s.id()) != null) {
+                emitir(EVENTO_STOCK_NORMAL, new AlertaStock(s.id(), s.nombre(), stock, umbral));
+            }
+        }
+        // Los que ya no existen: productos eliminados
+        for (Long id : pendientes) {
+            AlertaStock anterior = enAlerta.remove(id);
+            if (anterior != null) {
+                emitir(EVENTO_STOCK_NORMAL, new AlertaStock(id, anterior.nombre(), null, anterior.umbral()));
+            }
+        }
+    }
+
+    private int umbralDe(StockProducto s) {
+        return s.umbral() != null ? s.umbral() : umbralPorDefecto;
+    }
+
+    private Integer stockActual(StockProducto s) {
+        Integer enLedger = inventarioLedger != null ? inventarioLedger.disponible(s.id()) : null;
+        return enLedger != null ? enLedger : s.stock();
+    }
+
+    private void emitir(String nombre, AlertaStock alerta) {
+        difusor.emitir(() -> SseEmitter.event().name(nombre).data(alerta, MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,94 @@
+package com.peluchemania.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.peluchemania.backend.dto.BoletaResumen;
+import com.peluchemania.backend.repository.BoletaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exporta boletas fila por fila directo a la respuesta: la memoria usada no depende
+ * de cuántas boletas haya en el rango (ni lista en memoria ni entidades administradas).
+ */
+@Service
+public class BoletaExportService {
+
+    // Cada cuántas filas se empuja el buffer al cliente
+    private static final int FILAS_POR_FLUSH = 500;
+
+    @Autowired
+    private BoletaRepository boletaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public enum Formato {
+        NDJSON, CSV;
+
+        // "ndjson" o "csv" (sin importar mayúsculas); cualquier otro valor es un error del cliente
+        public static Formato desde(String valor) {
+            for (Formato formato : values()) {
+                if (formato.name().equalsIgnoreCase(valor)) {
+                    return formato;
+                }
+            }
+            throw new IllegalArgumentException("Formato no soportado: " + valor + " (usar csv o ndjson)");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportar(LocalDateTime desde, LocalDateTime hasta, Formato formato, Writer salida) throws IOException {
+        if (formato == Formato.CSV) {
+            salida.write("id,usuarioEmail,fecha,total,direccion\n");
+        }
+        long filas = 0;
+        try (Stream<BoletaResumen> boletas = boletaRepository.streamPorRangoDeFechas(desde, hasta)) {
+            Iterator<BoletaResumen> it = boletas.iterator();
+            while (it.hasNext()) {
+                BoletaResumen b = it.next();
+                if (formato == Formato.CSV) {
+                    escribirCsv(b, salida);
+                } else {
+                    salida.write(objectMapper.writeValueAsString(b));
+                    salida.write('\n');
+                }
+                if (++filas % FILAS_POR_FLUSH == 0) {
+                    salida.flush();
+                }
+            }
+        }
+        salida.flush();
+        return filas;
+    }
+
+    private static void escribirCsv(BoletaResumen b, Writer salida) throws IOException {
+        salida.write(String.valueOf(b.id()));
+        salida.write(',');
+        salida.write(csv(b.usuarioEmail()));
+        salida.write(',');
+        salida.write(b.fecha() == null ? "" : b.fecha().toString());
+        salida.write(',');
+        salida.write(b.total() == null ? "" : b.total().toString());
+        salida.write(',');
+        salida.write(csv(b.direccion()));
+        salida.write('\n');
+    }
+
+    // Comillas solo cuando hace falta (comas, comillas o saltos de línea)
+    private static String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,175 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre nombre y descripción de los productos.
+ * Los términos se guardan sin tildes y en minúsculas ("Dragón" -> "dragon", "Cariñoso" -> "carinoso")
+ * en un mapa ordenado, así una búsqueda por prefijo es un subMap y nunca un LIKE '%x%' en MySQL.
+ * Se arma al iniciar y se actualiza producto a producto desde ProductoService.
+ */
+@Service
+public class BusquedaProductosService {
+
+    // Peso de un término según dónde aparece
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_DESCRIPCION = 1;
+    // Una palabra completa vale más que un prefijo ("oso" antes que "osos" al buscar "oso")
+    private static final int BONO_EXACTO = 2;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    // término -> (id de producto -> peso)
+    private final TreeMap<String, Map<Long, Integer>> terminos = new TreeMap<>();
+    // id de producto -> sus términos (para poder sacarlo del índice al editar o eliminar)
+    private final Map<Long, Set<String>> terminosPorProducto = new HashMap<>();
+    // Muchas lecturas (typeahead) y pocas escrituras (admin)
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    public record Resultado(Long productoId, int puntaje) {
+    }
+
+    // Después de los CommandLineRunner (DataSeeder guarda directo con el repositorio)
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        List<Producto> productos = productoRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            terminos.clear();
+            terminosPorProducto.clear();
+            productos.forEach(this::agregar);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Alta o edición: reemplaza los términos anteriores del producto
+    public void indexar(Producto producto) {
+        lock.writeLock().lock();
+        try {
+            sacar(producto.getId());
+            agregar(producto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(Long productoId) {
+        lock.writeLock().lock();
+        try {
+            sacar(productoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Todas las palabras de la consulta deben aparecer (como palabra o prefijo de una).
+     * Orden: mayor puntaje primero y, a igual puntaje, el id más bajo.
+     */
+    public List<Resultado> buscar(String consulta, int limite) {
+        List<String> tokens = tokenizar(consulta);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> acumulado = null;
+        lock.readLock().lock();
+        try {
+            for (String token : tokens) {
+                // 1. Mejor coincidencia de este token en cada producto
+                Map<Long, Integer> delToken = new HashMap<>();
+                for (Map.Entry<String, Map<Long, Integer>> termino : terminos.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                    int bono = termino.getKey().equals(token) ? BONO_EXACTO : 1;
+                    termino.getValue().forEach((id, peso) -> delToken.merge(id, peso * bono, Math::max));
+                }
+
+                // 2. Intersección con los tokens anteriores
+                if (acumulado == null) {
+                    acumulado = delToken;
+                } else {
+                    Map<Long, Integer> anterior = acumulado;
+                    acumulado = new HashMap<>();
+                    for (Map.Entry<Long, Integer> e : delToken.entrySet()) {
+                        Integer previo = anterior.get(e.getKey());
+                        if (previo != null) {
+                            acumulado.put(e.getKey(), previo + e.getValue());
+                        }
+                    }
+                }
+                if (acumulado.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // 3. Ranking
+        return acumulado.entrySet().stream()
+                .map(e -> new Resultado(e.getKey(), e.getValue()))
+                .sorted(Comparator.comparingInt(Resultado::puntaje).reversed().thenComparing(Resultado::productoId))
+                .limit(limite)
+                .toList();
+    }
+
+    // "¡Dragón Cariñoso!" -> [dragon, carinoso]
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String plano = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(plano)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Se llaman con el write lock tomado
+    private void agregar(Producto producto) {
+        Map<String, Integer> pesos = new HashMap<>();
+        tokenizar(producto.getNombre()).forEach(t -> pesos.merge(t, PESO_NOMBRE, Integer::sum));
+        tokenizar(producto.getDescripcion()).forEach(t -> pesos.merge(t, PESO_DESCRIPCION, Integer::sum));
+        pesos.forEach((termino, peso) -> terminos.computeIfAbsent(termino, k -> new HashMap<>()).put(producto.getId(), peso));
+        terminosPorProducto.put(producto.getId(), pesos.keySet());
+    }
+
+    private void sacar(Long productoId) {
+        Set<String> anteriores = terminosPorProducto.remove(productoId);
+        if (anteriores == null) {
+            return;
+        }
+        for (String termino : anteriores) {
+            Map<Long, Integer> productos = terminos.get(termino);
+            productos.remove(productoId);
+            if (productos.isEmpty()) {
+                terminos.remove(termino);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.peluchemania.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.peluchemania.backend.dto.CambioProducto;
+import com.peluchemania.backend.dto.ProductoResumen;
+import com.peluchemania.backend.repository.ProductoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Feed en vivo de stock y precio para la vitrina (SSE).
+ * Los productos modificados se juntan durante una ventana corta (productos.cambios.intervalo-ms):
+ * 100 compras del mismo peluche en esa ventana salen como UN delta con el stock final, y todos los
+ * deltas de la ventana van en UN evento "cambios" que se serializa una sola vez para todos los clientes.
+ * Cada delta lleva un número de secuencia; el cliente que se reconecta con Last-Event-ID recibe lo que
+ * se perdió desde el historial, o un evento "reset" si ya no está (debe recargar el catálogo una vez).
+ */
+@Service
+public class CambiosProductoService {
+
+    private static final Logger log = LoggerFactory.getLogger(CambiosProductoService.class);
+
+    public static final String EVENTO_CAMBIOS = "cambios";
+    public static final String EVENTO_RESET = "reset";
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Solo existe con inventario.ledger.enabled=true: su contador va por delante de MySQL
+    @Autowired(required = false)
+    private InventarioLedger inventarioLedger;
+
+    @Value("${productos.cambios.intervalo-ms:250}")
+    private long intervaloMs;
+
+    @Value("${productos.cambios.historial:1000}")
+    private int historialMaximo;
+
+    @Value("${productos.cambios.sse-timeout-ms:1800000}")
+    private long timeoutSseMs;
+
+    // Ids modificados desde la última ventana (un Set: varias modificaciones del mismo id = una)
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    // Últimos deltas enviados, para reanudar; protegido por lockHistorial junto con la secuencia
+    private final ArrayDeque<CambioProducto> historial = new ArrayDeque<>();
+    private final ReentrantLock lockHistorial = new ReentrantLock();
+    // Arranca en la hora actual: un Last-Event-ID de antes de un reinicio queda fuera del historial => reset
+    private long secuencia = System.currentTimeMillis();
+    private DifusorSse difusor;
+    private final ScheduledExecutorService publicador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "cambios-productos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @PostConstruct
+    void iniciar() {
+        difusor = new DifusorSse(timeoutSseMs);
+        publicador.scheduleWithFixedDelay(this::publicarSeguro, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+        publicador.scheduleWithFixedDelay(difusor::latido, 25, 25, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        publicador.shutdownNow();
+        difusor.cerrar();
+    }
+
+    @EventListener
+    public void productosModificados(ProductosModificadosEvent evento) {
+        pendientes.addAll(evento.productoIds());
+    }
+
+    /**
+     * Suscribe un cliente. Con ultimoSeq (Last-Event-ID) primero recibe los deltas que se perdió.
+     * Bajo el mismo lock con que publicar() agrega al historial: todo delta queda en el reenvío o
+     * llega por el envío posterior (a veces por ambos: los deltas traen valores absolutos, repetir uno no cambia nada).
+     */
+    public SseEmitter suscribir(Long ultimoSeq) {
+        lockHistorial.lock();
+        try {
+            List<SseEmitter.SseEventBuilder> inicial = new ArrayList<>();
+            if (ultimoSeq != null) {
+                List<CambioProducto> perdidos = perdidosDesde(ultimoSeq);
+                if (perdidos == null) {
+                    inicial.add(SseEmitter.event().name(EVENTO_RESET).id(String.valueOf(secuencia)).data(secuencia));
+                } else if (!perdidos.isEmpty()) {
+                    inicial.add(evento(serializar(perdidos), secuencia));
+                }
+            }
+            return difusor.suscribir(inicial);
+        } finally {
+            lockHistorial.unlock();
+        }
+    }
+
+    // Deltas posteriores a ultimoSeq; null si ya no están en el historial o el id es de otro arranque
+    List<CambioProducto> perdidosDesde(long ultimoSeq) {
+        lockHistorial.lock();
+        try {
+            if (ultimoSeq > secuencia) {
+                return null;
+            }
+            if (ultimoSeq == secuencia) {
+                return List.of();
+            }
+            CambioProducto primero = historial.peekFirst();
+            if (primero == null || ultimoSeq < primero.seq() - 1) {
+                return null;
+            }
+            return historial.stream().filter(c -> c.seq() > ultimoSeq).toList();
+        } finally {
+            lockHistorial.unlock();
+        }
+    }
+
+    long secuenciaActual() {
+        lockHistorial.lock();
+        try {
+            return secuencia;
+        } finally {
+            lockHistorial.unlock();
+        }
+    }
+
+    public int conectados() {
+        return difusor.conectados();
+    }
+
+    // Cierra la ventana: lee los productos pendientes en UN select y envía un único evento
+    void publicar() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new TreeSet<>();
+        for (Iterator<Long> it = pendientes.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        Map<Long, ProductoResumen> actuales = productoRepository.findResumenByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductoResumen::id, Function.identity()));
+
+        // 1. Bajo el lock solo numerar y guardar en el historial
+        List<CambioProducto> cambios = new ArrayList<>(ids.size());
+        long ultimo;
+        lockHistorial.lock();
+        try {
+            for (Long id : ids) {
+                ProductoResumen p = actuales.get(id);
+                cambios.add(p == null
+                        ? new CambioProducto(++secuencia, id, null, null, null, null, true)
+                        : new CambioProducto(++secuencia, id, p.precio(), stockActual(p), p.onSale(), p.discountPercentage(), false));
+            }
+            for (CambioProducto cambio : cambios) {
+                historial.addLast(cambio);
+                if (historial.size() > historialMaximo) {
+                    historial.removeFirst();
+                }
+            }
+            ultimo = secuencia;
+        } finally {
+            lockHistorial.unlock();
+        }
+
+        // 2. Serializar y enviar fuera del lock: un cliente lento no frena suscripciones ni reconexiones
+        String json = serializar(cambios);
+        difusor.emitir(() -> evento(json, ultimo));
+    }
+
+    private void publicarSeguro() {
+        try {
+            publicar();
+        } catch (RuntimeException e) {
+            log.error("Feed de cambios: no se pudo publicar la ventana", e);
+        }
+    }
+
+    private Integer stockActual(ProductoResumen p) {
+        Integer enLedger = inventarioLedger != null ? inventarioLedger.disponible(p.id()) : null;
+        return enLedger != null ? enLedger : p.stock();
+    }
+
+    private static SseEmitter.SseEventBuilder evento(String json, long ultimoSeq) {
+        return SseEmitter.event().name(EVENTO_CAMBIOS).id(String.valueOf(ultimoSeq)).data(json, MediaType.APPLICATION_JSON);
+    }
+
+    private String serializar(List<CambioProducto> cambios) {
+        try {
+            return objectMapper.writeValueAsString(cambios);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el feed de cambios", e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.peluchemania.backend.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.peluchemania.backend.config.CacheConfig;
+import com.peluchemania.backend.dto.ProductoResumen;
+import com.peluchemania.backend.dto.StockProducto;
+import com.peluchemania.backend.repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Invalidación explícita de la caché del catálogo.
+ * Se llama DESPUÉS de que la escritura quedó guardada (admin o checkout), así que también
+ * avisa a quien siga los cambios de productos (ProductosModificadosEvent).
+ * Un cambio de stock (checkout, flush del ledger) no cambia qué productos aparecen en cada listado:
+ * se corrige el stock dentro de los listados cacheados en vez de vaciarlos. Vaciar queda para los
+ * cambios de estructura (alta, baja, precio, categoría).
+ */
+@Component
+public class CatalogoCache {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    // Por caché, sube con cada cambio de su contenido: identifica los bytes ya serializados (ver CatalogoSerializado)
+    private final Map<String, AtomicLong> versiones = new ConcurrentHashMap<>();
+
+    // Un producto cambió (alta, precio, stock, baja...): fuera su entrada y los listados que lo incluyen
+    public void productoModificado(Long id) {
+        evict(CacheConfig.PRODUCTO, id);
+        listadosModificados();
+        eventPublisher.publishEvent(new ProductosModificadosEvent(List.of(id)));
+    }
+
+    // Solo cambió el stock de estos productos (ej: una compra): fuera su entrada y se corrige el stock en los listados
+    public void stockModificado(Collection<Long> ids) {
+        ids.forEach(id -> evict(CacheConfig.PRODUCTO, id));
+        corregirStock(ids);
+        // "todos" incluye cualquier producto: sus bytes serializados quedan viejos aunque la lista ya no esté en caché
+        contador(CacheConfig.PRODUCTOS).incrementAndGet();
+        eventPublisher.publishEvent(new ProductosModificadosEvent(List.copyOf(ids)));
+    }
+
+    // Un producto nuevo solo afecta a los listados
+    public void listadosModificados() {
+        clear(CacheConfig.PRODUCTOS);
+        clear(CacheConfig.PRODUCTOS_POR_CATEGORIA);
+        clear(CacheConfig.CATALOGO);
+    }
+
+    // Versión del contenido de una caché (ej: CacheConfig.PRODUCTOS)
+    public long version(String cache) {
+        return contador(cache).get();
+    }
+
+    // Los productos llevan el nombre de su categoría, así que también se invalidan
+    public void categoriasModificadas() {
+        clear(CacheConfig.CATEGORIAS);
+        clear(CacheConfig.PRODUCTO);
+        listadosModificados();
+    }
+
+    // Aciertos, fallos y tamaño por caché
+    public Map<String, Map<String, Object>> estadisticas() {
+        Map<String, Map<String, Object>> resultado = new LinkedHashMap<>();
+        for (String nombre : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(nombre) instanceof CaffeineCache caffeine) {
+                CacheStats stats = caffeine.getNativeCache().stats();
+                Map<String, Object> datos = new LinkedHashMap<>();
+                datos.put("tamano", caffeine.getNativeCache().estimatedSize());
+                datos.put("aciertos", stats.hitCount());
+                datos.put("fallos", stats.missCount());
+                datos.put("tasaAciertos", stats.hitRate());
+                datos.put("desalojos", stats.evictionCount());
+                resultado.put(nombre, datos);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * 1. Solo se consulta la BD si algún listado cacheado contiene uno de los productos.
+     * 2. Un SELECT de (id, stock) para todos, y cada listado afectado se reemplaza por una copia corregida.
+     * Una página o categoría que no contiene esos productos no se toca.
+     */
+    private void corregirStock(Collection<Long> ids) {
+        List<ConcurrentMap<Object, Object>> listados = List.of(
+                nativa(CacheConfig.PRODUCTOS), nativa(CacheConfig.PRODUCTOS_POR_CATEGORIA), nativa(CacheConfig.CATALOGO));
+        boolean afectados = listados.stream()
+                .flatMap(mapa -> mapa.values().stream())
+                .anyMatch(valor -> contiene(valor, ids));
+        if (!afectados) {
+            return;
+        }
+        Map<Long, Integer> stocks = productoRepository.findStockByIdIn(ids).stream()
+                .filter(s -> s.stock() != null)
+                .collect(Collectors.toMap(StockProducto::id, StockProducto::stock));
+        for (ConcurrentMap<Object, Object> mapa : listados) {
+            mapa.forEach((clave, actual) -> {
+                if (contiene(actual, stocks.keySet())) {
+                    // computeIfPresent: atómico frente a otra corrección o una recarga de la misma entrada
+                    mapa.computeIfPresent(clave, (k, valor) -> conStock(valor, stocks));
+                }
+            });
+        }
+    }
+
+    // Misma lista si ningún producto cambió; si no, una copia con los resúmenes corregidos
+    private static Object conStock(Object valor, Map<Long, Integer> stocks) {
+        if (!(valor instanceof List<?> lista) || !contiene(lista, stocks.keySet())) {
+            return valor;
+        }
+        return lista.stream()
+                .map(p -> p instanceof ProductoResumen r && stocks.containsKey(r.id()) ? r.conStock(stocks.get(r.id())) : p)
+                .toList();
+    }
+
+    private static boolean contiene(Object valor, Collection<Long> ids) {
+        return valor instanceof List<?> lista
+                && lista.stream().anyMatch(p -> p instanceof ProductoResumen r && ids.contains(r.id()));
+    }
+
+    private AtomicLong contador(String cache) {
+        return versiones.computeIfAbsent(cache, k -> new AtomicLong());
+    }
+
+    private ConcurrentMap<Object, Object> nativa(String nombre) {
+        return cacheManager.getCache(nombre) instanceof CaffeineCache caffeine
+                ? caffeine.getNativeCache().asMap()
+                : new ConcurrentHashMap<>();
+    }
+
+    private void evict(String nombre, Object clave) {
+        Cache cache = cacheManager.getCache(nombre);
+        if (cache != null) {
+            cache.evict(clave);
+        }
+    }
+
+    private void clear(String nombre) {
+        Cache cache = cacheManager.getCache(nombre);
+        if (cache != null) {
+            cache.clear();
+        }
+        // Después de vaciar: quien lea la versión nueva ya no encuentra datos viejos en la caché
+        contador(nombre).incrementAndGet();
+    }
+}
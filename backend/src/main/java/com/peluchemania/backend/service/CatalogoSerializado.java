@@ -0,0 +1,139 @@
+package com.peluchemania.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Listados públicos del catálogo ya serializados (JSON, Smile o CBOR) y comprimidos con gzip.
+ * Cada entrada vale para una versión de la caché de la que salen sus datos ({@link CatalogoCache#version(String)}):
+ * mientras esa caché no cambie, una petición repetida no pasa ni por Jackson ni por el compresor.
+ * El ETag sale de un hash de los bytes, no de la versión (que es local a cada proceso y vuelve a 0 al reiniciar):
+ * el mismo contenido da el mismo ETag en cualquier instancia, y contenido distinto nunca da un 304 equivocado.
+ */
+@Component
+public class CatalogoSerializado {
+
+    // Bajo este tamaño gzip no compensa
+    private static final int MIN_BYTES_GZIP = 1024;
+
+    public enum Formato {
+        JSON(MediaType.APPLICATION_JSON),
+        SMILE(new MediaType("application", "x-jackson-smile")),
+        CBOR(MediaType.APPLICATION_CBOR);
+
+        private final MediaType tipo;
+
+        Formato(MediaType tipo) {
+            this.tipo = tipo;
+        }
+
+        public MediaType tipo() {
+            return tipo;
+        }
+
+        // El primero que acepte el cliente según su q=; sin Accept (o con */*) es JSON
+        public static Formato segun(List<MediaType> aceptados) {
+            List<MediaType> porCalidad = aceptados.stream()
+                    .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                    .toList();
+            for (MediaType aceptado : porCalidad) {
+                for (Formato formato : values()) {
+                    if (aceptado.includes(formato.tipo)) {
+                        return formato;
+                    }
+                }
+            }
+            return JSON;
+        }
+    }
+
+    // gzip es null si el cuerpo es muy chico para comprimirlo
+    public record Serializado(long version, byte[] bytes, byte[] gzip, String etag) {
+    }
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+
+    // "recurso|formato" -> bytes de la última versión pedida
+    private final Map<String, Serializado> entradas = new ConcurrentHashMap<>();
+
+    // recurso = nombre de la caché de la que sale el listado (CacheConfig.PRODUCTOS, CacheConfig.CATEGORIAS)
+    public Serializado obtener(String recurso, Formato formato, Supplier<?> datos) {
+        // La versión se lee ANTES de cargar los datos: si cambian mientras tanto, la entrada ya nace vieja
+        long version = catalogoCache.version(recurso);
+        String clave = recurso + '|' + formato;
+        Serializado actual = entradas.get(clave);
+        if (actual != null && actual.version() == version) {
+            return actual;
+        }
+        byte[] bytes = serializar(formato, datos.get());
+        Serializado nuevo = new Serializado(version, bytes,
+                bytes.length >= MIN_BYTES_GZIP ? gzip(bytes) : null, etag(recurso, formato, bytes));
+        // Si otra petición ya guardó una versión más nueva, se queda esa
+        return entradas.merge(clave, nuevo, (previo, candidato) -> previo.version() > candidato.version() ? previo : candidato);
+    }
+
+    private byte[] serializar(Formato formato, Object datos) {
+        ObjectMapper mapper = switch (formato) {
+            case JSON -> objectMapper;
+            case SMILE -> smileMapper;
+            case CBOR -> cborMapper;
+        };
+        try {
+            return mapper.writeValueAsBytes(datos);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el catálogo", e);
+        }
+    }
+
+    // Se comprime una vez por versión, así que conviene el nivel máximo
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    // 128 bits de SHA-256 bastan para que dos contenidos distintos no compartan ETag
+    private static String etag(String recurso, Formato formato, byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            String resumen = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+            return "\"" + recurso + "-" + resumen + "-" + formato.name().toLowerCase() + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
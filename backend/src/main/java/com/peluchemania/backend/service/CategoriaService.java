@@ -0,0 +1,49 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.config.CacheConfig;
+import com.peluchemania.backend.dto.CategoriaResumen;
+import com.peluchemania.backend.entity.Categoria;
+import com.peluchemania.backend.repository.CategoriaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class CategoriaService {
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    // Obtener todas las categorías (desde caché, como resúmenes inmutables: nunca entidades administradas).
+    // La recarga lee de la primaria (transacción no readOnly), igual que en ProductoService
+    @Cacheable(cacheNames = CacheConfig.CATEGORIAS, key = "'todas'")
+    @Transactional
+    public List<CategoriaResumen> listarCategorias() {
+        return categoriaRepository.findAllResumen();
+    }
+
+    // Guardar (nueva o editada) e invalidar la caché
+    public Categoria guardarCategoria(Categoria categoria) {
+        Categoria guardada = categoriaRepository.save(categoria);
+        catalogoCache.categoriasModificadas();
+        return guardada;
+    }
+
+    // Entidad para editar o eliminar (Admin): se lee de la primaria
+    @Transactional
+    public Optional<Categoria> obtenerParaEditar(Long id) {
+        return categoriaRepository.findById(id);
+    }
+
+    // Eliminar
+    public void eliminarCategoria(Categoria categoria) {
+        categoriaRepository.delete(categoria);
+        catalogoCache.categoriasModificadas();
+    }
+}
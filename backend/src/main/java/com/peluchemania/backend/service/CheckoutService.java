@@ -0,0 +1,152 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.dto.LineaCompra;
+import com.peluchemania.backend.entity.Boleta;
+import com.peluchemania.backend.entity.DetalleBoleta;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.BoletaRepository;
+import com.peluchemania.backend.repository.DetalleBoletaRepository;
+import com.peluchemania.backend.repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Escritura de una compra en una sola transacción y con pocas idas a la BD:
+ * UPDATE condicional de stock en batch, 1 SELECT para todo el carro e INSERT de detalles en batch
+ * (ver hibernate.jdbc.batch_size en application.properties).
+ * Una compra que no se puede completar se rechaza entera, nunca se "recorta" a cero.
+ */
+@Service
+public class CheckoutService {
+
+    @Autowired
+    private BoletaRepository boletaRepository;
+
+    @Autowired
+    private DetalleBoletaRepository detalleBoletaRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    // Solo existe con inventario.ledger.enabled=true
+    @Autowired(required = false)
+    private InventarioLedger inventarioLedger;
+
+    @Autowired
+    private RollupVentasService rollupVentasService;
+
+    // Boleta recién guardada con sus detalles (los ids ya están asignados)
+    public record CompraRegistrada(Boleta boleta, List<DetalleBoleta> detalles) {
+    }
+
+    @Transactional
+    public Boleta procesarCompra(String email, Double total, String direccion, List<LineaCompra> lineas) {
+        // 1. Unidades pedidas por producto (un mismo producto puede venir en varias líneas)
+        SortedMap<Long, Integer> cantidades = agruparCantidades(lineas);
+
+        // 2. Reservar stock de forma atómica; si algo no alcanza se revierte toda la compra
+        boolean conLedger = inventarioLedger != null;
+        List<Long> sinStock = conLedger
+                ? inventarioLedger.reservar(cantidades)
+                : productoRepository.descontarStock(cantidades);
+        if (!sinStock.isEmpty()) {
+            rechazar(sinStock);
+        }
+
+        CompraRegistrada compra = registrar(email, total, direccion, lineas, cantidades, !conLedger);
+        if (conLedger) {
+            confirmarEnLedger(cantidades, compra.detalles());
+        }
+        return compra.boleta();
+    }
+
+    // Valida las cantidades y las suma por producto (ordenadas por id)
+    public static SortedMap<Long, Integer> agruparCantidades(List<LineaCompra> lineas) {
+        SortedMap<Long, Integer> cantidades = new TreeMap<>();
+        for (LineaCompra linea : lineas) {
+            if (linea.productoId() == null || linea.cantidad() == null || linea.cantidad() <= 0) {
+                throw new IllegalArgumentException("Cantidad inválida para el producto " + linea.productoId());
+            }
+            cantidades.merge(linea.productoId(), linea.cantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+
+    /**
+     * Lo que no se pudo reservar es un producto inexistente (400) o sin stock suficiente (409).
+     * El SELECT extra solo corre al rechazar: una compra que se completa no lo paga.
+     */
+    public void rechazar(List<Long> sinReservar) {
+        List<Long> existentes = productoRepository.findIdsByIdIn(sinReservar);
+        List<Long> inexistentes = sinReservar.stream().filter(id -> !existentes.contains(id)).toList();
+        if (!inexistentes.isEmpty()) {
+            throw new ProductoInexistenteException(inexistentes);
+        }
+        throw new StockInsuficienteException(sinReservar);
+    }
+
+    /**
+     * Guarda boleta, detalles y rollups de una compra cuyo stock YA está reservado.
+     * Corre en la transacción que ya existe: la de procesarCompra o la de un lote de IngresoPedidosService.
+     */
+    public CompraRegistrada registrar(String email, Double total, String direccion, List<LineaCompra> lineas,
+                                      SortedMap<Long, Integer> cantidades, boolean stockAplicado) {
+        // 3. Cabecera (el id sale de la secuencia, no hay INSERT inmediato)
+        Boleta boleta = new Boleta();
+        boleta.setUsuarioEmail(email);
+        boleta.setTotal(total);
+        boleta.setDireccion(direccion);
+        boleta.setFecha(LocalDateTime.now());
+        boletaRepository.save(boleta);
+
+        // 4. Todos los productos del carro en un solo SELECT ... WHERE id IN (...)
+        Map<Long, Producto> productos = productoRepository.findAllById(cantidades.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        // 5. Detalles (INSERT agrupados en batch al hacer commit)
+        List<DetalleBoleta> detalles = new ArrayList<>(lineas.size());
+        for (LineaCompra linea : lineas) {
+            DetalleBoleta detalle = new DetalleBoleta();
+            detalle.setBoleta(boleta);
+            detalle.setProducto(productos.get(linea.productoId()));
+            detalle.setCantidad(linea.cantidad());
+            detalle.setPrecioUnitario(linea.precio());
+            detalle.setStockAplicado(stockAplicado);
+            detalles.add(detalle);
+        }
+        detalleBoletaRepository.saveAll(detalles);
+
+        // 6. Rollups de ventas: se suman tras el commit, fuera de la transacción (si la compra se revierte, no cuentan)
+        rollupVentasService.registrarCompra(boleta, detalles);
+
+        return new CompraRegistrada(boleta, detalles);
+    }
+
+    // Con ledger: tras el commit el descuento pasa a la cola de escritura; si hubo rollback se libera la reserva
+    private void confirmarEnLedger(SortedMap<Long, Integer> cantidades, List<DetalleBoleta> detalles) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    inventarioLedger.encolar(detalles.stream()
+                            .map(d -> new InventarioLedger.Pendiente(d.getId(), d.getProducto().getId(), d.getCantidad()))
+                            .toList());
+                } else {
+                    inventarioLedger.liberar(cantidades);
+                }
+            }
+        });
+    }
+}
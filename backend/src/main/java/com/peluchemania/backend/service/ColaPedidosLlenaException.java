@@ -0,0 +1,16 @@
+package com.peluchemania.backend.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * La cola de pedidos asíncronos está llena: 503 inmediato (el cliente reintenta)
+ * en vez de aceptar más de lo que el escritor alcanza a guardar.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ColaPedidosLlenaException extends RuntimeException {
+
+    public ColaPedidosLlenaException(String message) {
+        super(message);
+    }
+}
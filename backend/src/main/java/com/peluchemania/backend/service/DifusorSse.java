@@ -0,0 +1,64 @@
+package com.peluchemania.backend.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Clientes SSE conectados a un mismo canal. Un cliente que falla al recibir se da por desconectado.
+ * (El evento se arma una vez por cliente: SseEventBuilder no se puede reutilizar.)
+ */
+public class DifusorSse {
+
+    private final List<SseEmitter> suscriptores = new CopyOnWriteArrayList<>();
+    private final long timeoutMs;
+
+    public DifusorSse(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    // Nuevo cliente; "inicial" son los eventos que recibe antes que los demás (estado o reenvío)
+    public SseEmitter suscribir(List<SseEmitter.SseEventBuilder> inicial) {
+        SseEmitter emisor = new SseEmitter(timeoutMs);
+        emisor.onCompletion(() -> suscriptores.remove(emisor));
+        emisor.onTimeout(() -> suscriptores.remove(emisor));
+        emisor.onError(e -> suscriptores.remove(emisor));
+        try {
+            for (SseEmitter.SseEventBuilder evento : inicial) {
+                emisor.send(evento);
+            }
+            suscriptores.add(emisor);
+        } catch (IOException e) {
+            emisor.completeWithError(e);
+        }
+        return emisor;
+    }
+
+    public void emitir(Supplier<SseEmitter.SseEventBuilder> evento) {
+        for (SseEmitter emisor : suscriptores) {
+            try {
+                emisor.send(evento.get());
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado
+                suscriptores.remove(emisor);
+            }
+        }
+    }
+
+    // Comentario vacío periódico para que proxies y balanceadores no corten la conexión
+    public void latido() {
+        emitir(() -> SseEmitter.event().comment("ping"));
+    }
+
+    public int conectados() {
+        return suscriptores.size();
+    }
+
+    public void cerrar() {
+        suscriptores.forEach(SseEmitter::complete);
+        suscriptores.clear();
+    }
+}
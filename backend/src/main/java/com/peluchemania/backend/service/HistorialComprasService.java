@@ -0,0 +1,62 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.dto.BoletaConDetalles;
+import com.peluchemania.backend.dto.CursorBoleta;
+import com.peluchemania.backend.dto.LineaBoleta;
+import com.peluchemania.backend.dto.PaginaCursor;
+import com.peluchemania.backend.entity.Boleta;
+import com.peluchemania.backend.repository.BoletaRepository;
+import com.peluchemania.backend.repository.DetalleBoletaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Historial de compras de un cliente: una página de boletas con sus líneas en 2 SELECT fijos
+ * (boletas por índice usuario_email, fecha, id + todas las líneas con WHERE boleta_id IN (...)),
+ * sin importar cuántas compras tenga el cliente.
+ * <p>
+ * La transacción no es readOnly a propósito: así lee de la primaria y el cliente ve la compra
+ * que acaba de hacer aunque las réplicas vengan atrasadas.
+ */
+@Service
+public class HistorialComprasService {
+
+    @Autowired
+    private BoletaRepository boletaRepository;
+
+    @Autowired
+    private DetalleBoletaRepository detalleBoletaRepository;
+
+    @Transactional
+    public PaginaCursor<BoletaConDetalles> pagina(String usuarioEmail, CursorBoleta cursor, int limite) {
+        // 1. Boletas de la página (+1 para saber si hay siguiente)
+        List<Boleta> filas = boletaRepository.buscarPaginaDeUsuario(usuarioEmail, cursor, limite + 1);
+        List<Boleta> boletas = filas.size() > limite ? filas.subList(0, limite) : filas;
+        if (boletas.isEmpty()) {
+            return new PaginaCursor<>(List.of(), null);
+        }
+
+        // 2. Líneas de todas esas boletas de una sola vez
+        Map<Long, List<LineaBoleta>> lineasPorBoleta = detalleBoletaRepository
+                .findLineasByBoletaIds(boletas.stream().map(Boleta::getId).toList()).stream()
+                .collect(Collectors.groupingBy(LineaBoleta::boletaId));
+
+        // 3. Armar la respuesta en el orden de la página
+        List<BoletaConDetalles> items = boletas.stream()
+                .map(b -> new BoletaConDetalles(b.getId(), b.getFecha(), b.getTotal(), b.getDireccion(),
+                        lineasPorBoleta.getOrDefault(b.getId(), List.of())))
+                .toList();
+
+        String siguiente = null;
+        if (filas.size() > limite) {
+            Boleta ultima = boletas.get(boletas.size() - 1);
+            siguiente = new CursorBoleta(ultima.getFecha(), ultima.getId()).codificar();
+        }
+        return new PaginaCursor<>(items, siguiente);
+    }
+}
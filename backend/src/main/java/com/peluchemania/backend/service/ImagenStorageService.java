@@ -0,0 +1,287 @@
+package com.peluchemania.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de imágenes en disco direccionado por contenido.
+ * Cada imagen se guarda una sola vez con el SHA-256 de sus bytes como nombre,
+ * así la tabla producto solo guarda una URL corta en vez del base64 completo.
+ */
+@Service
+public class ImagenStorageService {
+
+    // Ruta pública desde la que se sirven las imágenes (ver ImagenController)
+    public static final String PREFIJO_URL = "/api/productos/imagenes/";
+
+    private static final Pattern CLAVE_VALIDA = Pattern.compile("[0-9a-f]{64}\\.(jpg|png|gif|webp)");
+
+    private static final Map<String, String> EXTENSIONES = Map.of(
+            "image/jpeg", "jpg",
+            "image/jpg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp");
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    private static final List<String> EXTENSIONES_RENDICION = List.of("jpg", "png");
+
+    // Buffer fijo para las subidas multipart: la memoria por subida no depende del tamaño del archivo
+    private static final int BUFFER_SUBIDA = 64 * 1024;
+    private static final int LARGO_FIRMA = 12;
+
+    private final Path directorio;
+
+    public ImagenStorageService(@Value("${imagenes.directorio:uploads/imagenes}") String directorio) {
+        this.directorio = Paths.get(directorio).toAbsolutePath().normalize();
+    }
+
+    // Si la URL viene como "data:image/...;base64,..." la pasamos a disco y devolvemos la URL corta.
+    // Una URL de este almacén (ej: la que devuelve la subida multipart) tiene que existir.
+    // Cualquier otra cosa (ej: "/osito.jpg") se deja tal cual.
+    public String normalizarUrlImagen(String urlImagen) {
+        if (urlImagen != null && urlImagen.startsWith(PREFIJO_URL)) {
+            if (claveDeUrl(urlImagen).flatMap(this::buscar).isEmpty()) {
+                throw new IllegalArgumentException("La imagen " + urlImagen + " no existe: súbela primero");
+            }
+            return urlImagen;
+        }
+        if (urlImagen == null || !urlImagen.startsWith("data:")) {
+            return urlImagen;
+        }
+        int coma = urlImagen.indexOf(',');
+        String cabecera = coma > 0 ? urlImagen.substring(5, coma) : "";
+        if (!cabecera.endsWith(";base64")) {
+            throw new IllegalArgumentException("Solo se aceptan imágenes en base64");
+        }
+        String contentType = cabecera.substring(0, cabecera.length() - ";base64".length());
+        byte[] datos = Base64.getMimeDecoder().decode(urlImagen.substring(coma + 1));
+        return PREFIJO_URL + guardar(datos, contentType);
+    }
+
+    // Guarda los bytes (si no existen ya) y devuelve la clave "<sha256>.<ext>"
+    public String guardar(byte[] datos, String contentType) {
+        String extension = extensionPara(contentType);
+        String clave = sha256(datos) + "." + extension;
+        Path destino = rutaDe(clave);
+        if (Files.exists(destino)) {
+            return clave; // Misma imagen ya guardada: no se duplica
+        }
+        escribir(destino, datos);
+        return clave;
+    }
+
+    // Guarda una imagen que llega como stream (subida multipart) sin tenerla entera en memoria:
+    // 1. Se copia a un temporal con un buffer fijo, calculando el SHA-256 y cortando si pasa maxBytes
+    // 2. El tipo sale de la firma de los primeros bytes, no del Content-Type que declare el cliente
+    // 3. Se mueve a su nombre definitivo "<sha256>.<ext>" (o se descarta si esa imagen ya existía)
+    public String guardar(InputStream entrada, long maxBytes) {
+        MessageDigest digest = nuevoDigest();
+        Path temporal = null;
+        try {
+            Files.createDirectories(directorio);
+            temporal = Files.createTempFile(directorio, "subida", ".tmp");
+            byte[] buffer = new byte[BUFFER_SUBIDA];
+            byte[] firma = new byte[LARGO_FIRMA];
+            int largoFirma = 0;
+            long total = 0;
+            try (OutputStream salida = Files.newOutputStream(temporal)) {
+                int leidos;
+                while ((leidos = entrada.read(buffer)) != -1) {
+                    total += leidos;
+                    if (total > maxBytes) {
+                        throw new IllegalArgumentException("La imagen supera el máximo de " + maxBytes + " bytes");
+                    }
+                    if (largoFirma < LARGO_FIRMA) {
+                        int copiar = Math.min(leidos, LARGO_FIRMA - largoFirma);
+                        System.arraycopy(buffer, 0, firma, largoFirma, copiar);
+                        largoFirma += copiar;
+                    }
+                    digest.update(buffer, 0, leidos);
+                    salida.write(buffer, 0, leidos);
+                }
+            }
+
+            String extension = extensionPorFirma(firma, largoFirma);
+            if (extension == null) {
+                throw new IllegalArgumentException("El archivo no es una imagen JPEG, PNG, GIF o WebP");
+            }
+            String clave = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            Path destino = rutaDe(clave);
+            if (!Files.exists(destino)) {
+                Files.createDirectories(destino.getParent());
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return clave;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la imagen subida", e);
+        } finally {
+            borrarTemporal(temporal);
+        }
+    }
+
+    // Clave de una URL de este almacén ("/api/productos/imagenes/<clave>"), si lo es
+    public Optional<String> claveDeUrl(String urlImagen) {
+        if (urlImagen == null || !urlImagen.startsWith(PREFIJO_URL)) {
+            return Optional.empty();
+        }
+        String clave = urlImagen.substring(PREFIJO_URL.length());
+        return CLAVE_VALIDA.matcher(clave).matches() ? Optional.of(clave) : Optional.empty();
+    }
+
+    // Todas las imágenes originales guardadas
+    public List<String> claves() {
+        if (!Files.isDirectory(directorio)) {
+            return List.of();
+        }
+        try (Stream<Path> archivos = Files.walk(directorio, 2)) {
+            return archivos.map(ruta -> ruta.getFileName().toString())
+                    .filter(nombre -> CLAVE_VALIDA.matcher(nombre).matches())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo recorrer " + directorio, e);
+        }
+    }
+
+    // --- VERSIONES REDUCIDAS (ver MiniaturasService): "<sha256>-<tamano>.<jpg|png>" junto al original ---
+
+    public void guardarRendicion(String clave, String tamano, String extension, byte[] datos) {
+        escribir(rutaDe(clave).resolveSibling(base(clave) + "-" + tamano + "." + extension), datos);
+    }
+
+    public Optional<Path> buscarRendicion(String clave, String tamano) {
+        if (clave == null || !CLAVE_VALIDA.matcher(clave).matches()) {
+            return Optional.empty();
+        }
+        for (String extension : EXTENSIONES_RENDICION) {
+            Path ruta = rutaDe(clave).resolveSibling(base(clave) + "-" + tamano + "." + extension);
+            if (Files.isRegularFile(ruta)) {
+                return Optional.of(ruta);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Marca "<sha256>.sin-versiones": el original no se puede decodificar (formato sin lector, corrupto o
+    // demasiado grande). La clave es el hash del contenido, así que la marca vale para siempre
+    public void marcarSinRendiciones(String clave) {
+        escribir(rutaSinRendiciones(clave), new byte[0]);
+    }
+
+    public boolean sinRendiciones(String clave) {
+        return clave != null && CLAVE_VALIDA.matcher(clave).matches() && Files.isRegularFile(rutaSinRendiciones(clave));
+    }
+
+    private Path rutaSinRendiciones(String clave) {
+        return rutaDe(clave).resolveSibling(base(clave) + ".sin-versiones");
+    }
+
+    // Escritura atómica: quien lee nunca ve un archivo a medias
+    private void escribir(Path destino, byte[] datos) {
+        try {
+            Files.createDirectories(destino.getParent());
+            Path temporal = Files.createTempFile(destino.getParent(), destino.getFileName().toString(), ".tmp");
+            Files.write(temporal, datos);
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la imagen " + destino.getFileName(), e);
+        }
+    }
+
+    // Devuelve el archivo de una clave válida y existente
+    public Optional<Path> buscar(String clave) {
+        if (clave == null || !CLAVE_VALIDA.matcher(clave).matches()) {
+            return Optional.empty();
+        }
+        Path ruta = rutaDe(clave);
+        return Files.isRegularFile(ruta) ? Optional.of(ruta) : Optional.empty();
+    }
+
+    // Acepta una clave o el nombre de un archivo de rendición
+    public String contentTypeDe(String clave) {
+        String extension = clave.substring(clave.lastIndexOf('.') + 1);
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    public static String extensionPara(String contentType) {
+        String extension = contentType == null ? null : EXTENSIONES.get(contentType.toLowerCase());
+        if (extension == null) {
+            throw new IllegalArgumentException("Tipo de imagen no soportado: " + contentType);
+        }
+        return extension;
+    }
+
+    private static String base(String clave) {
+        return clave.substring(0, clave.lastIndexOf('.'));
+    }
+
+    // Se reparte en subcarpetas por los 2 primeros caracteres del hash para no llenar un solo directorio
+    private Path rutaDe(String clave) {
+        return directorio.resolve(clave.substring(0, 2)).resolve(clave);
+    }
+
+    // Números mágicos de cada formato aceptado
+    static String extensionPorFirma(byte[] firma, int largo) {
+        if (largo >= 3 && (firma[0] & 0xFF) == 0xFF && (firma[1] & 0xFF) == 0xD8 && (firma[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (largo >= 8 && (firma[0] & 0xFF) == 0x89 && firma[1] == 'P' && firma[2] == 'N' && firma[3] == 'G'
+                && firma[4] == '\r' && firma[5] == '\n' && firma[6] == 0x1A && firma[7] == '\n') {
+            return "png";
+        }
+        if (largo >= 4 && firma[0] == 'G' && firma[1] == 'I' && firma[2] == 'F' && firma[3] == '8') {
+            return "gif";
+        }
+        if (largo >= 12 && firma[0] == 'R' && firma[1] == 'I' && firma[2] == 'F' && firma[3] == 'F'
+                && firma[8] == 'W' && firma[9] == 'E' && firma[10] == 'B' && firma[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static void borrarTemporal(Path temporal) {
+        if (temporal == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporal);
+        } catch (IOException ignorada) {
+            // Un .tmp huérfano no molesta: claves() solo ve nombres "<sha256>.<ext>"
+        }
+    }
+
+    private static String sha256(byte[] datos) {
+        return HexFormat.of().formatHex(nuevoDigest().digest(datos));
+    }
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
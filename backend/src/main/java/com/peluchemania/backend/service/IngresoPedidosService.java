@@ -0,0 +1,251 @@
+package com.peluchemania.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.peluchemania.backend.dto.EstadoPedido;
+import com.peluchemania.backend.dto.LineaCompra;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checkout asíncrono con group commit (flash sales).
+ * En la petición solo se valida y se reserva el stock en el ledger (memoria) y el pedido entra a una
+ * cola acotada; el cliente recibe su id al instante. Un único hilo escritor saca todo lo que haya en
+ * la cola y guarda el lote completo en UNA transacción, así el costo del commit se reparte entre
+ * todos los pedidos del lote en vez de pagarse una vez por compra.
+ * Requiere inventario.ledger.enabled=true (la reserva no puede tocar MySQL).
+ */
+@Service
+@ConditionalOnProperty(name = "checkout.asincrono.enabled", havingValue = "true")
+public class IngresoPedidosService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngresoPedidosService.class);
+
+    // Pedido aceptado, con su stock ya reservado
+    private record Pedido(String id, String email, Double total, String direccion,
+                          List<LineaCompra> lineas, SortedMap<Long, Integer> cantidades) {
+    }
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired(required = false)
+    private InventarioLedger inventarioLedger;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${checkout.asincrono.capacidad-cola:10000}")
+    private int capacidadCola;
+
+    @Value("${checkout.asincrono.lote-maximo:200}")
+    private int loteMaximo;
+
+    @Value("${checkout.asincrono.retencion-estados-min:30}")
+    private long retencionEstadosMin;
+
+    private BlockingQueue<Pedido> cola;
+    private Cache<String, CompletableFuture<EstadoPedido>> estados;
+    private Thread escritor;
+    private volatile boolean activo = true;
+
+    private final AtomicLong aceptados = new AtomicLong();
+    private final AtomicLong rechazadosColaLlena = new AtomicLong();
+    private final AtomicLong confirmados = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+
+    @PostConstruct
+    void iniciar() {
+        if (inventarioLedger == null) {
+            throw new IllegalStateException("checkout.asincrono.enabled=true requiere inventario.ledger.enabled=true");
+        }
+        cola = new ArrayBlockingQueue<>(capacidadCola);
+        estados = Caffeine.newBuilder().expireAfterWrite(retencionEstadosMin, TimeUnit.MINUTES).build();
+        escritor = new Thread(this::escribirEnBucle, "checkout-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    // Lo que quede en la cola se guarda antes de cerrar (el ledger se cierra después: depende de él)
+    @PreDestroy
+    void detener() throws InterruptedException {
+        // Sin interrupt: un lote a medio guardar termina su transacción normalmente
+        activo = false;
+        escritor.join(TimeUnit.SECONDS.toMillis(10));
+        List<Pedido> resto = new ArrayList<>();
+        cola.drainTo(resto);
+        if (!resto.isEmpty()) {
+            guardarLote(resto);
+        }
+    }
+
+    /**
+     * Valida, reserva y encola. Lanza ProductoInexistenteException o StockInsuficienteException
+     * (nada reservado; solo ahí se consulta la BD) o ColaPedidosLlenaException (reserva devuelta).
+     */
+    public EstadoPedido aceptar(String email, Double total, String direccion, List<LineaCompra> lineas) {
+        SortedMap<Long, Integer> cantidades = CheckoutService.agruparCantidades(lineas);
+        List<Long> sinStock = inventarioLedger.reservar(cantidades);
+        if (!sinStock.isEmpty()) {
+            checkoutService.rechazar(sinStock);
+        }
+
+        Pedido pedido = new Pedido(UUID.randomUUID().toString(), email, total, direccion, List.copyOf(lineas), cantidades);
+        EstadoPedido enCola = new EstadoPedido(pedido.id(), EstadoPedido.Estado.EN_COLA, null, null);
+        estados.put(pedido.id(), new CompletableFuture<>());
+        if (!cola.offer(pedido)) {
+            estados.invalidate(pedido.id());
+            inventarioLedger.liberar(cantidades);
+            rechazadosColaLlena.incrementAndGet();
+            throw new ColaPedidosLlenaException("Hay demasiados pedidos en espera, intenta nuevamente en unos segundos");
+        }
+        aceptados.incrementAndGet();
+        return enCola;
+    }
+
+    // null si el id no existe o ya expiró
+    public EstadoPedido estado(String pedidoId) {
+        CompletableFuture<EstadoPedido> resultado = estados.getIfPresent(pedidoId);
+        if (resultado == null) {
+            return null;
+        }
+        return resultado.getNow(new EstadoPedido(pedidoId, EstadoPedido.Estado.EN_COLA, null, null));
+    }
+
+    // Long polling: se completa cuando el lote del pedido se guarda o, a más tardar, tras "esperaMs" con EN_COLA
+    public CompletableFuture<EstadoPedido> esperar(String pedidoId, long esperaMs) {
+        CompletableFuture<EstadoPedido> resultado = estados.getIfPresent(pedidoId);
+        if (resultado == null) {
+            return null;
+        }
+        // copy(): el timeout de este cliente no debe completar el resultado compartido
+        return resultado.copy().completeOnTimeout(
+                new EstadoPedido(pedidoId, EstadoPedido.Estado.EN_COLA, null, null), esperaMs, TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("enCola", cola.size());
+        datos.put("capacidadCola", capacidadCola);
+        datos.put("aceptados", aceptados.get());
+        datos.put("rechazadosColaLlena", rechazadosColaLlena.get());
+        datos.put("confirmados", confirmados.get());
+        datos.put("fallidos", fallidos.get());
+        datos.put("lotes", lotes.get());
+        datos.put("pedidosPorLote", lotes.get() == 0 ? 0.0 : (double) (confirmados.get() + fallidos.get()) / lotes.get());
+        return datos;
+    }
+
+    private void escribirEnBucle() {
+        List<Pedido> lote = new ArrayList<>(loteMaximo);
+        while (activo) {
+            try {
+                // Espera el primer pedido y se lleva todo lo que se juntó mientras se guardaba el lote anterior
+                Pedido primero = cola.poll(200, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, loteMaximo - 1);
+                guardarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Checkout asíncrono: error inesperado guardando un lote", e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void guardarLote(List<Pedido> lote) {
+        lotes.incrementAndGet();
+        List<CheckoutService.CompraRegistrada> compras = null;
+        try {
+            // 1. Todo el lote en una transacción (un commit)
+            compras = transactionTemplate.execute(status -> {
+                List<CheckoutService.CompraRegistrada> registradas = new ArrayList<>(lote.size());
+                for (Pedido p : lote) {
+                    registradas.add(checkoutService.registrar(p.email(), p.total(), p.direccion(), p.lineas(), p.cantidades(), false));
+                }
+                return registradas;
+            });
+        } catch (RuntimeException e) {
+            // 2. Un pedido malo no puede tumbar a los demás: se reintenta cada uno por separado
+            log.warn("Checkout asíncrono: falló un lote de {} pedidos, se guardan uno por uno", lote.size(), e);
+            for (Pedido p : lote) {
+                guardarSolo(p);
+            }
+        }
+        // 3. Confirmar fuera del try: el lote ya hizo commit y no se puede volver a guardar
+        if (compras != null) {
+            for (int i = 0; i < lote.size(); i++) {
+                confirmar(lote.get(i), compras.get(i));
+            }
+        }
+        catalogoCache.stockModificado(lote.stream().flatMap(p -> p.cantidades().keySet().stream()).distinct().toList());
+    }
+
+    private void guardarSolo(Pedido p) {
+        CheckoutService.CompraRegistrada compra;
+        try {
+            compra = transactionTemplate.execute(status ->
+                    checkoutService.registrar(p.email(), p.total(), p.direccion(), p.lineas(), p.cantidades(), false));
+        } catch (RuntimeException e) {
+            inventarioLedger.liberar(p.cantidades());
+            fallidos.incrementAndGet();
+            completar(new EstadoPedido(p.id(), EstadoPedido.Estado.RECHAZADO, null, "No se pudo registrar la compra"));
+            log.error("Checkout asíncrono: pedido {} rechazado", p.id(), e);
+            return;
+        }
+        confirmar(p, compra);
+    }
+
+    /**
+     * Tras el commit: el descuento pasa a la cola de escritura del ledger (igual que en CheckoutService).
+     * La boleta ya está guardada, así que el pedido queda CONFIRMADO aunque encolar falle (p. ej. el flusher
+     * rechaza tareas al apagar): sus detalles siguen con stock_aplicado = false y recuperarPendientes los aplica.
+     */
+    private void confirmar(Pedido p, CheckoutService.CompraRegistrada compra) {
+        try {
+            inventarioLedger.encolar(compra.detalles().stream()
+                    .map(d -> new InventarioLedger.Pendiente(d.getId(), d.getProducto().getId(), d.getCantidad()))
+                    .toList());
+        } catch (RuntimeException e) {
+            log.error("Checkout asíncrono: no se pudo encolar el descuento del pedido {} (queda para la recuperación)", p.id(), e);
+        }
+        confirmados.incrementAndGet();
+        completar(new EstadoPedido(p.id(), EstadoPedido.Estado.CONFIRMADO, compra.boleta().getId(), null));
+    }
+
+    private void completar(EstadoPedido estado) {
+        CompletableFuture<EstadoPedido> resultado = estados.getIfPresent(estado.pedidoId());
+        if (resultado != null) {
+            resultado.complete(estado);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.repository.ProductoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * Ledger de inventario en memoria para productos "calientes" (ej: flash sales).
+ * <p>
+ * La reserva se hace con CAS sobre un contador por producto, sin tocar la fila en MySQL.
+ * Los descuentos se acumulan y se escriben agrupados por producto cada pocos ms o al llenar un lote.
+ * Cada detalle_boleta queda con stock_aplicado = false hasta que su descuento llega a la BD,
+ * así al reiniciar se recupera lo que quedó pendiente (ver {@link #recuperarPendientes()}).
+ * <p>
+ * Solo es correcto con UNA instancia del backend: se activa con inventario.ledger.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "inventario.ledger.enabled", havingValue = "true")
+public class InventarioLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(InventarioLedger.class);
+
+    private static final String DESCONTAR_STOCK = "update producto set stock = stock - ? where id = ?";
+    private static final String MARCAR_APLICADO = "update detalle_boleta set stock_aplicado = true where id = ?";
+    private static final String STOCK_EN_BD = "select stock from producto where id = ?";
+    private static final String PENDIENTES =
+            "select id, producto_id, cantidad from detalle_boleta where stock_aplicado = false";
+
+    // Un descuento ya confirmado (boleta guardada) que falta escribir en producto.stock
+    public record Pendiente(Long detalleId, Long productoId, int cantidad) {
+    }
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Value("${inventario.ledger.intervalo-flush-ms:200}")
+    private long intervaloFlushMs;
+
+    @Value("${inventario.ledger.lote-maximo:500}")
+    private int loteMaximo;
+
+    private final Map<Long, AtomicInteger> disponibles = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Pendiente> pendientes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger cantidadPendientes = new AtomicInteger();
+    // ReentrantLock y no synchronized: el flush hace I/O y no debe fijar hilos virtuales
+    private final ReentrantLock lockFlush = new ReentrantLock();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "inventario-ledger-flush");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @PostConstruct
+    void iniciar() {
+        recuperarPendientes();
+        flusher.scheduleWithFixedDelay(this::flushSeguro, intervaloFlushMs, intervaloFlushMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        flusher.shutdown();
+        flush();
+    }
+
+    // 1. RESERVAR: todo o nada. Devuelve los productos sin stock suficiente (vacío = reservado)
+    public List<Long> reservar(SortedMap<Long, Integer> cantidades) {
+        List<Long> sinStock = new ArrayList<>();
+        Map<Long, Integer> reservados = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entrada : cantidades.entrySet()) {
+            AtomicInteger contador = contador(entrada.getKey());
+            if (contador != null && descontar(contador, entrada.getValue())) {
+                reservados.put(entrada.getKey(), entrada.getValue());
+            } else {
+                sinStock.add(entrada.getKey());
+            }
+        }
+        if (!sinStock.isEmpty()) {
+            liberar(reservados);
+        }
+        return sinStock;
+    }
+
+    // 2. LIBERAR: la compra no se confirmó, se devuelven las unidades
+    public void liberar(Map<Long, Integer> cantidades) {
+        cantidades.forEach((id, cantidad) -> {
+            AtomicInteger contador = disponibles.get(id);
+            if (contador != null) {
+                contador.addAndGet(cantidad);
+            }
+        });
+    }
+
+    // 3. ENCOLAR: la boleta ya está guardada, falta escribir el stock en la BD
+    public void encolar(List<Pendiente> nuevos) {
+        pendientes.addAll(nuevos);
+        if (cantidadPendientes.addAndGet(nuevos.size()) >= loteMaximo) {
+            flusher.execute(this::flushSeguro);
+        }
+    }
+
+    // Stock que ve el ledger (incluye reservas aún no escritas en MySQL)
+    public Integer disponible(Long productoId) {
+        AtomicInteger contador = contador(productoId);
+        return contador == null ? null : contador.get();
+    }
+
+    // El admin fija el stock a mano. Se aplica como DIFERENCIA (nuevo - disponible) al contador y a la fila,
+    // así las reservas en curso, sus rollbacks (liberar) y los descuentos en cola siguen cuadrando.
+    // Con lockFlush tomado nadie más escribe producto.stock; guardar recibe el valor que debe quedar en la fila.
+    public <T> T fijarStock(Long productoId, int nuevoStock, IntFunction<T> guardar) {
+        lockFlush.lock();
+        try {
+            AtomicInteger contador = contador(productoId);
+            List<Integer> enBd = jdbcTemplate.queryForList(STOCK_EN_BD, Integer.class, productoId);
+            if (contador == null || enBd.isEmpty() || enBd.get(0) == null) {
+                return guardar.apply(nuevoStock);
+            }
+            int diferencia = nuevoStock - contador.getAndSet(nuevoStock);
+            try {
+                return guardar.apply(enBd.get(0) + diferencia);
+            } catch (RuntimeException e) {
+                contador.addAndGet(-diferencia);
+                throw e;
+            }
+        } finally {
+            lockFlush.unlock();
+        }
+    }
+
+    // 4. FLUSH: descuentos agrupados por producto + marcar detalles, en una sola transacción
+    public void flush() {
+        lockFlush.lock();
+        try {
+            List<Pendiente> lote = new ArrayList<>();
+            Pendiente p;
+            while ((p = pendientes.poll()) != null) {
+                lote.add(p);
+            }
+            if (lote.isEmpty()) {
+                return;
+            }
+            cantidadPendientes.addAndGet(-lote.size());
+            try {
+                escribir(lote);
+            } catch (RuntimeException e) {
+                // Se reintenta en el próximo ciclo; stock_aplicado = false protege ante una caída
+                pendientes.addAll(lote);
+                cantidadPendientes.addAndGet(lote.size());
+                throw e;
+            }
+        } finally {
+            lockFlush.unlock();
+        }
+    }
+
+    // Al arrancar: aplica en producto.stock los detalles que quedaron sin escribir antes de una caída
+    public void recuperarPendientes() {
+        List<Pendiente> lote = jdbcTemplate.query(PENDIENTES, (rs, i) ->
+                new Pendiente(rs.getLong("id"), rs.getLong("producto_id"), rs.getInt("cantidad")));
+        if (!lote.isEmpty()) {
+            escribir(lote);
+            log.info("Ledger de inventario: recuperados {} descuentos pendientes", lote.size());
+        }
+        disponibles.clear();
+    }
+
+    private void escribir(List<Pendiente> lote) {
+        // Coalescer: N compras del mismo producto = 1 UPDATE
+        SortedMap<Long, Integer> porProducto = new TreeMap<>();
+        lote.forEach(p -> porProducto.merge(p.productoId(), p.cantidad(), Integer::sum));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(DESCONTAR_STOCK, new ArrayList<>(porProducto.entrySet()), porProducto.size(),
+                    (ps, e) -> {
+                        ps.setInt(1, e.getValue());
+                        ps.setLong(2, e.getKey());
+                    });
+            jdbcTemplate.batchUpdate(MARCAR_APLICADO, lote, lote.size(),
+                    (ps, p) -> ps.setLong(1, p.detalleId()));
+        });
+        catalogoCache.stockModificado(porProducto.keySet());
+    }
+
+    private void flushSeguro() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Ledger de inventario: no se pudo escribir el stock, se reintentará", e);
+        }
+    }
+
+    // Contador del producto; se carga desde la BD la primera vez (null si el producto no existe)
+    private AtomicInteger contador(Long productoId) {
+        AtomicInteger contador = disponibles.get(productoId);
+        if (contador != null) {
+            return contador;
+        }
+        // La consulta va fuera de computeIfAbsent para no bloquear el mapa mientras se espera a MySQL
+        Integer stock = productoRepository.findStockById(productoId);
+        if (stock == null) {
+            return null;
+        }
+        AtomicInteger previo = disponibles.putIfAbsent(productoId, new AtomicInteger(stock));
+        return previo != null ? previo : disponibles.get(productoId);
+    }
+
+    private static boolean descontar(AtomicInteger contador, int cantidad) {
+        while (true) {
+            int actual = contador.get();
+            if (actual < cantidad) {
+                return false;
+            }
+            if (contador.compareAndSet(actual, actual - cantidad)) {
+                return true;
+            }
+        }
+    }
+}
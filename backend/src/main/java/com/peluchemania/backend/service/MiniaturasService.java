@@ -0,0 +1,256 @@
+package com.peluchemania.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Versiones reducidas de las fotos de productos (grid, detalle y zoom), generadas en segundo plano
+ * con javax.imageio. La petición que sube la foto solo la encola; hasta que la versión esté lista
+ * se sirve el original (ver ImagenController).
+ * <p>
+ * Formato: JPEG progresivo (PNG si la imagen tiene transparencia). El JDK no trae codificador
+ * WebP/AVIF, y JPEG a calidad ~0.8 y al ancho justo ya es una fracción del original.
+ */
+@Service
+public class MiniaturasService {
+
+    private static final Logger log = LoggerFactory.getLogger(MiniaturasService.class);
+
+    // Fotos más grandes que esto se rechazan (protección ante "bombas" de descompresión)
+    private static final long MAX_PIXELES = 100_000_000L;
+    // El doble de la versión más grande: margen para reducir por mitades con buena calidad
+    private static final int LADO_MAXIMO_DECODIFICADO = Tamano.ZOOM.ancho() * 2;
+
+    public enum Tamano {
+        GRID(320), DETALLE(800), ZOOM(1600);
+
+        private final int ancho;
+
+        Tamano(int ancho) {
+            this.ancho = ancho;
+        }
+
+        public int ancho() {
+            return ancho;
+        }
+
+        public String nombre() {
+            return name().toLowerCase();
+        }
+
+        public static Optional<Tamano> desde(String nombre) {
+            return Arrays.stream(values()).filter(t -> t.nombre().equals(nombre)).findFirst();
+        }
+    }
+
+    @Autowired
+    private ImagenStorageService imagenStorageService;
+
+    @Value("${imagenes.miniaturas.hilos:1}")
+    private int hilos;
+
+    @Value("${imagenes.miniaturas.capacidad-cola:200}")
+    private int capacidadCola;
+
+    @Value("${imagenes.miniaturas.calidad-jpeg:0.82}")
+    private float calidadJpeg;
+
+    // Claves ya encoladas o en proceso: la misma foto no se procesa dos veces a la vez
+    private final Set<String> enProceso = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void iniciar() {
+        executor = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), r -> {
+            Thread hilo = new Thread(r, "miniaturas");
+            hilo.setDaemon(true);
+            hilo.setPriority(Thread.MIN_PRIORITY);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    void detener() {
+        executor.shutdownNow();
+    }
+
+    // Fotos que quedaron sin versiones (subidas antes de existir este servicio o con la cola llena)
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarPendientes() {
+        imagenStorageService.claves().forEach(this::encolar);
+    }
+
+    // Si la URL es de nuestro almacén, encola sus versiones
+    public void encolarUrl(String urlImagen) {
+        imagenStorageService.claveDeUrl(urlImagen).ifPresent(this::encolar);
+    }
+
+    public void encolar(String clave) {
+        if (!faltanVersiones(clave) || imagenStorageService.sinRendiciones(clave) || !enProceso.add(clave)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generar(clave);
+                } finally {
+                    enProceso.remove(clave);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Cola llena: se reintenta la próxima vez que alguien pida esta imagen
+            enProceso.remove(clave);
+        }
+    }
+
+    // 1. Decodificar (submuestreando si es enorme)  2. Reducir a cada ancho  3. Codificar y guardar
+    // Si el original no se puede decodificar queda marcado y no se vuelve a encolar: reintentar daría lo mismo
+    void generar(String clave) {
+        Optional<Path> original = imagenStorageService.buscar(clave);
+        if (original.isEmpty()) {
+            return;
+        }
+        BufferedImage imagen;
+        try {
+            imagen = leer(original.get());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Miniaturas: no se pudo decodificar {} (se servirá siempre el original)", clave, e);
+            imagenStorageService.marcarSinRendiciones(clave);
+            return;
+        }
+        if (imagen == null) {
+            log.warn("Miniaturas: sin lector de ImageIO para {} (se servirá siempre el original)", clave);
+            imagenStorageService.marcarSinRendiciones(clave);
+            return;
+        }
+        try {
+            boolean alfa = imagen.getColorModel().hasAlpha();
+            for (Tamano tamano : Tamano.values()) {
+                if (imagenStorageService.buscarRendicion(clave, tamano.nombre()).isPresent()) {
+                    continue;
+                }
+                // Nunca se agranda: una foto chica queda a su ancho, pero recomprimida
+                BufferedImage reducida = reducir(imagen, Math.min(tamano.ancho(), imagen.getWidth()), alfa);
+                imagenStorageService.guardarRendicion(clave, tamano.nombre(), alfa ? "png" : "jpg",
+                        alfa ? png(reducida) : jpeg(reducida));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Miniaturas: no se pudo procesar {}", clave, e);
+        }
+    }
+
+    private boolean faltanVersiones(String clave) {
+        return Arrays.stream(Tamano.values())
+                .anyMatch(t -> imagenStorageService.buscarRendicion(clave, t.nombre()).isEmpty());
+    }
+
+    // Con ImageReader y no ImageIO.read: se ven las dimensiones antes de decodificar y una foto
+    // de 6000x4000 se decodifica directo a 3000x2000 (paso 2), sin tener todos sus píxeles en memoria
+    private static BufferedImage leer(Path archivo) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(archivo.toFile())) {
+            Iterator<ImageReader> lectores = entrada == null ? null : ImageIO.getImageReaders(entrada);
+            if (lectores == null || !lectores.hasNext()) {
+                return null;
+            }
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                int ancho = lector.getWidth(0);
+                int alto = lector.getHeight(0);
+                if ((long) ancho * alto > MAX_PIXELES) {
+                    throw new IOException("Imagen demasiado grande: " + ancho + "x" + alto);
+                }
+                ImageReadParam parametros = lector.getDefaultReadParam();
+                int paso = paso(ancho, alto);
+                parametros.setSourceSubsampling(paso, paso, 0, 0);
+                return lector.read(0, parametros);
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    // Menor salto de submuestreo que deja ambos lados en LADO_MAXIMO_DECODIFICADO o menos (una imagen alta
+    // y angosta también se acota); hasta ese lado se decodifica entera
+    static int paso(int ancho, int alto) {
+        int porAncho = (ancho + LADO_MAXIMO_DECODIFICADO - 1) / LADO_MAXIMO_DECODIFICADO;
+        int porAlto = (alto + LADO_MAXIMO_DECODIFICADO - 1) / LADO_MAXIMO_DECODIFICADO;
+        return Math.max(1, Math.max(porAncho, porAlto));
+    }
+
+    // Reducción por mitades con bilineal: mucho mejor calidad que un solo salto grande
+    private static BufferedImage reducir(BufferedImage origen, int anchoFinal, boolean alfa) {
+        int altoFinal = Math.max(1, Math.round((float) origen.getHeight() * anchoFinal / origen.getWidth()));
+        int tipo = alfa ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage actual = origen;
+        int ancho = origen.getWidth();
+        int alto = origen.getHeight();
+        do {
+            ancho = Math.max(anchoFinal, ancho / 2);
+            alto = Math.max(altoFinal, alto / 2);
+            BufferedImage siguiente = new BufferedImage(ancho, alto, tipo);
+            Graphics2D g = siguiente.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(actual, 0, 0, ancho, alto, null);
+            g.dispose();
+            actual = siguiente;
+        } while (ancho != anchoFinal || alto != altoFinal);
+        return actual;
+    }
+
+    private byte[] jpeg(BufferedImage imagen) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (ImageOutputStream destino = ImageIO.createImageOutputStream(salida)) {
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(calidadJpeg);
+            // Progresivo: en conexiones lentas se ve completa (borrosa) antes de terminar de bajar
+            parametros.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            escritor.setOutput(destino);
+            escritor.write(null, new IIOImage(imagen, null, null), parametros);
+        } finally {
+            escritor.dispose();
+        }
+        return salida.toByteArray();
+    }
+
+    private static byte[] png(BufferedImage imagen) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "png", salida);
+        return salida.toByteArray();
+    }
+}
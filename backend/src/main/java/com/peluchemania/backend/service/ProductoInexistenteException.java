@@ -0,0 +1,21 @@
+package com.peluchemania.backend.service;
+
+import java.util.List;
+
+/**
+ * El carro trae productos que no existen (borrados o ids inventados): es un carro inválido (400),
+ * no una falta de stock. La transacción se revierte completa igual que con StockInsuficienteException.
+ */
+public class ProductoInexistenteException extends RuntimeException {
+
+    private final List<Long> productosInexistentes;
+
+    public ProductoInexistenteException(List<Long> productosInexistentes) {
+        super("Productos inexistentes: " + productosInexistentes);
+        this.productosInexistentes = productosInexistentes;
+    }
+
+    public List<Long> getProductosInexistentes() {
+        return productosInexistentes;
+    }
+}
@@ -1,9 +1,15 @@
 package com.peluchemania.backend.service;
 
+import com.peluchemania.backend.config.CacheConfig;
+import com.peluchemania.backend.dto.CursorCatalogo;
+import com.peluchemania.backend.dto.FiltroCatalogo;
+import com.peluchemania.backend.dto.ProductoResumen;
 import com.peluchemania.backend.entity.Producto;
 import com.peluchemania.backend.repository.ProductoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,23 +19,72 @@ public class ProductoService {
     @Autowired
     private ProductoRepository productoRepository;
 
-    // Obtener todos los productos
-    public List<Producto> listarProductos() {
-        return productoRepository.findAll();
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private BusquedaProductosService busquedaProductosService;
+
+    // Solo existe con inventario.ledger.enabled=true
+    @Autowired(required = false)
+    private InventarioLedger inventarioLedger;
+
+    // Las recargas de la caché corren en una transacción de escritura (no readOnly) para leer de la
+    // primaria: con réplicas, una réplica atrasada dejaría filas viejas cacheadas hasta el próximo cambio.
+
+    // Obtener todos los productos (desde caché, como resúmenes inmutables: nunca entidades administradas)
+    @Cacheable(cacheNames = CacheConfig.PRODUCTOS, key = "'todos'")
+    @Transactional
+    public List<ProductoResumen> listarProductos() {
+        return productoRepository.findAllResumen();
     }
 
-    // Guardar un producto
+    // Productos de una categoría (desde caché)
+    @Cacheable(cacheNames = CacheConfig.PRODUCTOS_POR_CATEGORIA, key = "#categoriaId")
+    @Transactional
+    public List<ProductoResumen> listarPorCategoria(Long categoriaId) {
+        return productoRepository.findResumenByCategoriaId(categoriaId);
+    }
+
+    // Página del catálogo (desde caché, una entrada por combinación de filtros + cursor)
+    @Cacheable(cacheNames = CacheConfig.CATALOGO, key = "{#filtro, #cursor, #limite}")
+    @Transactional
+    public List<ProductoResumen> buscarCatalogo(FiltroCatalogo filtro, CursorCatalogo cursor, int limite) {
+        return productoRepository.buscarCatalogo(filtro, cursor, limite);
+    }
+
+    // Guardar un producto (nuevo o editado) e invalidar la caché
     public Producto guardarProducto(Producto producto) {
-        return productoRepository.save(producto);
+        boolean conLedger = producto.getId() != null && producto.getStock() != null && inventarioLedger != null;
+        // Con ledger el stock editado se aplica como diferencia, atómico frente a reservas y flush
+        Producto guardado = conLedger
+                ? inventarioLedger.fijarStock(producto.getId(), producto.getStock(), stockFila -> {
+                    producto.setStock(stockFila);
+                    return productoRepository.save(producto);
+                })
+                : productoRepository.save(producto);
+        busquedaProductosService.indexar(guardado);
+        catalogoCache.productoModificado(guardado.getId());
+        return guardado;
+    }
+
+    // Buscar por ID (desde caché; los "no encontrado" no se guardan)
+    @Cacheable(cacheNames = CacheConfig.PRODUCTO, key = "#id", unless = "#result == null")
+    @Transactional
+    public Optional<ProductoResumen> obtenerPorId(Long id) {
+        return productoRepository.findResumenById(id);
     }
 
-    // Buscar por ID
-    public Optional<Producto> obtenerPorId(Long id) {
+    // Entidad para editar o eliminar (Admin): se lee de la primaria, nunca de una réplica atrasada
+    @Transactional
+    public Optional<Producto> obtenerParaEditar(Long id) {
         return productoRepository.findById(id);
     }
 
     // Eliminar
-    public void eliminarProducto(Long id) {
-        productoRepository.deleteById(id);
+    public void eliminarProducto(Producto producto) {
+        productoRepository.delete(producto);
+        catalogoCache.productoModificado(producto.getId());
+        busquedaProductosService.quitar(producto.getId());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package com.peluchemania.backend.service;
+
+import java.util.List;
+
+/**
+ * Productos cuyo stock, precio o datos cambiaron y ya están guardados (lo publica CatalogoCache).
+ * Un id que ya no existe en la BD significa que el producto se eliminó.
+ */
+public record ProductosModificadosEvent(List<Long> productoIds) {
+}
@@ -0,0 +1,316 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.entity.Boleta;
+import com.peluchemania.backend.entity.DetalleBoleta;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mantiene los rollups de ventas (por día, por producto y por categoría).
+ * <p>
+ * El checkout NO toca estas tablas: al hacer commit su compra se suma a un acumulado en memoria y un hilo
+ * lo vuelca cada rollup.ventas.intervalo-ms con un upsert por fila (INSERT ... ON DUPLICATE KEY UPDATE en MySQL).
+ * Así la fila del día no es un candado global que ponga en fila a todas las compras.
+ * Si el proceso muere se pierde como mucho un intervalo de rollups: POST /api/reportes/reconstruir los recalcula.
+ * Volcar y reconstruir se excluyen (lockEscritura, desde tomar lo pendiente hasta el commit) y reconstruir espera a que
+ * terminen las compras en curso: así ninguna compra queda contada dos veces ni se pierde por el recálculo.
+ * Los ingresos salen siempre de las líneas (cantidad * precio_unitario), igual en los tres rollups.
+ * Los reportes leen solo estas tablas: O(días) u O(productos), sin recorrer boleta ni detalle_boleta.
+ */
+@Service
+public class RollupVentasService {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupVentasService.class);
+
+    private static final String UPSERT_DIA_MYSQL =
+            "insert into venta_diaria (fecha, boletas, unidades, ingresos) values (?, ?, ?, ?) as n " +
+            "on duplicate key update boletas = venta_diaria.boletas + n.boletas, " +
+            "unidades = venta_diaria.unidades + n.unidades, ingresos = venta_diaria.ingresos + n.ingresos";
+    private static final String UPSERT_PRODUCTO_MYSQL =
+            "insert into venta_producto (producto_id, unidades, ingresos) values (?, ?, ?) as n " +
+            "on duplicate key update unidades = venta_producto.unidades + n.unidades, ingresos = venta_producto.ingresos + n.ingresos";
+    private static final String UPSERT_CATEGORIA_MYSQL =
+            "insert into venta_categoria (categoria_id, unidades, ingresos) values (?, ?, ?) as n " +
+            "on duplicate key update unidades = venta_categoria.unidades + n.unidades, ingresos = venta_categoria.ingresos + n.ingresos";
+
+    // H2 (tests y perfil "carga") no tiene ON DUPLICATE KEY fuera del modo MySQL: MERGE estándar, también atómico
+    private static final String UPSERT_DIA_ESTANDAR =
+            "merge into venta_diaria t using (values (cast(? as date), cast(? as bigint), cast(? as bigint), cast(? as double precision))) " +
+            "n (fecha, boletas, unidades, ingresos) on t.fecha = n.fecha " +
+            "when matched then update set boletas = t.boletas + n.boletas, unidades = t.unidades + n.unidades, ingresos = t.ingresos + n.ingresos " +
+            "when not matched then insert (fecha, boletas, unidades, ingresos) values (n.fecha, n.boletas, n.unidades, n.ingresos)";
+    private static final String UPSERT_PRODUCTO_ESTANDAR = upsertEstandar("venta_producto", "producto_id");
+    private static final String UPSERT_CATEGORIA_ESTANDAR = upsertEstandar("venta_categoria", "categoria_id");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${rollup.ventas.intervalo-ms:1000}")
+    private long intervaloMs;
+
+    // Compras confirmadas que aún no llegan a las tablas; protegido por lockPendientes
+    private Acumulado pendientes = new Acumulado();
+    private final ReentrantLock lockPendientes = new ReentrantLock();
+    // Un volcado o una reconstrucción a la vez, desde que se toma lo pendiente hasta el commit de su escritura
+    private final ReentrantLock lockEscritura = new ReentrantLock();
+    // Lectura: una compra desde registrarCompra hasta que termina su transacción. Escritura: reconstruir
+    private final ReentrantReadWriteLock compras = new ReentrantReadWriteLock();
+    private volatile Boolean mysql;
+
+    private final ScheduledExecutorService volcador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "rollup-ventas");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @PostConstruct
+    void iniciar() {
+        volcador.scheduleWithFixedDelay(this::volcarSeguro, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        volcador.shutdownNow();
+        volcarSeguro();
+    }
+
+    // Suma una compra recién guardada cuando su transacción hace commit (si se revierte, no cuenta)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCompra(Boleta boleta, List<DetalleBoleta> detalles) {
+        Acumulado compra = new Acumulado();
+        LocalDate dia = boleta.getFecha().toLocalDate();
+        compra.sumarBoleta(dia);
+        for (DetalleBoleta d : detalles) {
+            double ingreso = d.getCantidad() * (d.getPrecioUnitario() == null ? 0 : d.getPrecioUnitario());
+            Long categoriaId = d.getProducto().getCategoria() == null ? null : d.getProducto().getCategoria().getId();
+            compra.sumarLinea(dia, d.getProducto().getId(), categoriaId, d.getCantidad(), ingreso);
+        }
+        Lock enCurso = compras.readLock();
+        enCurso.lock();
+        try {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    agregar(compra);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    enCurso.unlock();
+                }
+            });
+        } catch (RuntimeException e) {
+            enCurso.unlock();
+            throw e;
+        }
+    }
+
+    // Escribe lo acumulado en una transacción; si falla, lo devuelve al acumulado para el próximo intento
+    public void volcar() {
+        lockEscritura.lock();
+        try {
+            Acumulado lote;
+            lockPendientes.lock();
+            try {
+                if (pendientes.vacio()) {
+                    return;
+                }
+                lote = pendientes;
+                pendientes = new Acumulado();
+            } finally {
+                lockPendientes.unlock();
+            }
+            try {
+                transactionTemplate.executeWithoutResult(estado -> escribir(lote));
+            } catch (RuntimeException e) {
+                agregar(lote);
+                throw e;
+            }
+        } finally {
+            lockEscritura.unlock();
+        }
+    }
+
+    /**
+     * Reconstruye todo desde boleta y detalle_boleta (backfill o corrección). Mejor con poco tráfico:
+     * mientras dura, las compras nuevas esperan en registrarCompra antes de su commit.
+     */
+    public void reconstruir() {
+        lockEscritura.lock();
+        try {
+            // 1. Esperar a que terminen las compras en curso: ya no queda ningún commit sin su agregar()
+            compras.writeLock().lock();
+            try {
+                // 2. Todo lo pendiente ya está en las boletas: el recálculo lo incluye
+                lockPendientes.lock();
+                try {
+                    pendientes = new Acumulado();
+                } finally {
+                    lockPendientes.unlock();
+                }
+
+                // 3. Recalcular y hacer commit antes de dejar pasar compras nuevas (esas van al acumulado)
+                transactionTemplate.executeWithoutResult(estado -> recalcular());
+            } finally {
+                compras.writeLock().unlock();
+            }
+        } finally {
+            lockEscritura.unlock();
+        }
+    }
+
+    // SELECT y luego INSERT en batch, no INSERT ... SELECT: en MySQL ese bloquea las filas leídas de producto y detalle_boleta
+    private void recalcular() {
+        jdbcTemplate.update("delete from venta_diaria");
+        jdbcTemplate.update("delete from venta_producto");
+        jdbcTemplate.update("delete from venta_categoria");
+
+        List<Object[]> boletasPorDia = jdbcTemplate.query(
+                "select cast(b.fecha as date) dia, count(*) boletas " +
+                "from boleta b where b.fecha is not null group by cast(b.fecha as date)",
+                (rs, i) -> new Object[]{rs.getDate("dia"), rs.getLong("boletas")});
+        jdbcTemplate.batchUpdate("insert into venta_diaria (fecha, boletas, unidades, ingresos) values (?, ?, 0, 0)", boletasPorDia);
+        List<Object[]> lineasPorDia = jdbcTemplate.query(
+                "select cast(b.fecha as date) dia, sum(d.cantidad) unidades, coalesce(sum(d.cantidad * d.precio_unitario), 0) ingresos " +
+                "from detalle_boleta d join boleta b on b.id = d.boleta_id " +
+                "where b.fecha is not null group by cast(b.fecha as date)",
+                (rs, i) -> new Object[]{rs.getLong("unidades"), rs.getDouble("ingresos"), rs.getDate("dia")});
+        jdbcTemplate.batchUpdate("update venta_diaria set unidades = ?, ingresos = ? where fecha = ?", lineasPorDia);
+
+        List<Object[]> porProducto = jdbcTemplate.query(
+                "select d.producto_id, sum(d.cantidad) unidades, coalesce(sum(d.cantidad * d.precio_unitario), 0) ingresos " +
+                "from detalle_boleta d where d.producto_id is not null group by d.producto_id",
+                (rs, i) -> new Object[]{rs.getLong("producto_id"), rs.getLong("unidades"), rs.getDouble("ingresos")});
+        jdbcTemplate.batchUpdate("insert into venta_producto (producto_id, unidades, ingresos) values (?, ?, ?)", porProducto);
+        List<Object[]> porCategoria = jdbcTemplate.query(
+                "select p.categoria_id, sum(d.cantidad) unidades, coalesce(sum(d.cantidad * d.precio_unitario), 0) ingresos " +
+                "from detalle_boleta d join producto p on p.id = d.producto_id " +
+                "where p.categoria_id is not null group by p.categoria_id",
+                (rs, i) -> new Object[]{rs.getLong("categoria_id"), rs.getLong("unidades"), rs.getDouble("ingresos")});
+        jdbcTemplate.batchUpdate("insert into venta_categoria (categoria_id, unidades, ingresos) values (?, ?, ?)", porCategoria);
+    }
+
+    private void volcarSeguro() {
+        try {
+            volcar();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron volcar los rollups de ventas (se reintenta en {} ms)", intervaloMs, e);
+        }
+    }
+
+    private void agregar(Acumulado compra) {
+        lockPendientes.lock();
+        try {
+            pendientes.sumar(compra);
+        } finally {
+            lockPendientes.unlock();
+        }
+    }
+
+    // Siempre en el mismo orden (producto, categoría, día; cada uno por id) para que dos instancias no se bloqueen en cruz
+    private void escribir(Acumulado lote) {
+        boolean enMysql = esMysql();
+        List<Object[]> productos = new ArrayList<>();
+        lote.porProducto.forEach((id, v) -> productos.add(new Object[]{id, (long) v[0], v[1]}));
+        List<Object[]> categorias = new ArrayList<>();
+        lote.porCategoria.forEach((id, v) -> categorias.add(new Object[]{id, (long) v[0], v[1]}));
+        List<Object[]> dias = new ArrayList<>();
+        lote.porDia.forEach((dia, v) -> dias.add(new Object[]{Date.valueOf(dia), (long) v[0], (long) v[1], v[2]}));
+
+        if (!productos.isEmpty()) {
+            jdbcTemplate.batchUpdate(enMysql ? UPSERT_PRODUCTO_MYSQL : UPSERT_PRODUCTO_ESTANDAR, productos);
+        }
+        if (!categorias.isEmpty()) {
+            jdbcTemplate.batchUpdate(enMysql ? UPSERT_CATEGORIA_MYSQL : UPSERT_CATEGORIA_ESTANDAR, categorias);
+        }
+        if (!dias.isEmpty()) {
+            jdbcTemplate.batchUpdate(enMysql ? UPSERT_DIA_MYSQL : UPSERT_DIA_ESTANDAR, dias);
+        }
+    }
+
+    private boolean esMysql() {
+        if (mysql == null) {
+            mysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) conexion ->
+                    conexion.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql"));
+        }
+        return mysql;
+    }
+
+    private static String upsertEstandar(String tabla, String clave) {
+        return "merge into " + tabla + " t using (values (cast(? as bigint), cast(? as bigint), cast(? as double precision))) " +
+               "n (" + clave + ", unidades, ingresos) on t." + clave + " = n." + clave + " " +
+               "when matched then update set unidades = t.unidades + n.unidades, ingresos = t.ingresos + n.ingresos " +
+               "when not matched then insert (" + clave + ", unidades, ingresos) values (n." + clave + ", n.unidades, n.ingresos)";
+    }
+
+    // Sumas por día [boletas, unidades, ingresos], por producto y por categoría [unidades, ingresos]
+    private static final class Acumulado {
+        final SortedMap<LocalDate, double[]> porDia = new TreeMap<>();
+        final SortedMap<Long, double[]> porProducto = new TreeMap<>();
+        final SortedMap<Long, double[]> porCategoria = new TreeMap<>();
+
+        void sumarBoleta(LocalDate dia) {
+            porDia.computeIfAbsent(dia, k -> new double[3])[0] += 1;
+        }
+
+        void sumarLinea(LocalDate dia, Long productoId, Long categoriaId, int unidades, double ingresos) {
+            double[] delDia = porDia.computeIfAbsent(dia, k -> new double[3]);
+            delDia[1] += unidades;
+            delDia[2] += ingresos;
+            sumar(porProducto, productoId, unidades, ingresos);
+            if (categoriaId != null) {
+                sumar(porCategoria, categoriaId, unidades, ingresos);
+            }
+        }
+
+        void sumar(Acumulado otro) {
+            otro.porDia.forEach((dia, v) -> {
+                double[] delDia = porDia.computeIfAbsent(dia, k -> new double[3]);
+                delDia[0] += v[0];
+                delDia[1] += v[1];
+                delDia[2] += v[2];
+            });
+            otro.porProducto.forEach((id, v) -> sumar(porProducto, id, v[0], v[1]));
+            otro.porCategoria.forEach((id, v) -> sumar(porCategoria, id, v[0], v[1]));
+        }
+
+        boolean vacio() {
+            return porDia.isEmpty();
+        }
+
+        private static void sumar(Map<Long, double[]> acumulado, Long id, double unidades, double ingresos) {
+            double[] valores = acumulado.computeIfAbsent(id, k -> new double[2]);
+            valores[0] += unidades;
+            valores[1] += ingresos;
+        }
+    }
+}
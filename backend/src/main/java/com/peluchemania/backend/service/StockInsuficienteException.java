@@ -0,0 +1,21 @@
+package com.peluchemania.backend.service;
+
+import java.util.List;
+
+/**
+ * Se lanza cuando una compra pide más unidades de las que quedan.
+ * La transacción se revierte completa: no se descuenta nada ni se crea la boleta.
+ */
+public class StockInsuficienteException extends RuntimeException {
+
+    private final List<Long> productosSinStock;
+
+    public StockInsuficienteException(List<Long> productosSinStock) {
+        super("Stock insuficiente para los productos: " + productosSinStock);
+        this.productosSinStock = productosSinStock;
+    }
+
+    public List<Long> getProductosSinStock() {
+        return productosSinStock;
+    }
+}
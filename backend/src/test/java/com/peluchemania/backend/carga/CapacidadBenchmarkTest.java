@@ -0,0 +1,153 @@
+package com.peluchemania.backend.carga;
+
+import com.peluchemania.backend.BackendPeluchemaniaApplication;
+import com.peluchemania.backend.entity.Categoria;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.CategoriaRepository;
+import com.peluchemania.backend.repository.ProductoRepository;
+import com.peluchemania.backend.security.JwtUtil;
+import com.peluchemania.backend.service.ProductoService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Capacidad del backend completo en una sola máquina (perfil "carga": H2 en memoria, sin MySQL).
+ * Mezcla realista: navegación anónima del catálogo y búsqueda, logins (BCrypt), checkouts autenticados
+ * sobre un producto "caliente" (todos compiten por la misma fila) y sobre productos "fríos", y ediciones de admin.
+ * Reporta throughput y p50/p99/p999 por endpoint.
+ * <p>
+ * Ejecutar con: mvn test -Pcarga  (o -Dcarga.concurrencia=128 -Dcarga.duracion=60 ...)
+ */
+@Tag("benchmark")
+class CapacidadBenchmarkTest {
+
+	private static final int CONCURRENCIA = Integer.getInteger("carga.concurrencia", 64);
+	private static final Duration CALENTAMIENTO = Duration.ofSeconds(Long.getLong("carga.calentamiento", 10));
+	private static final Duration DURACION = Duration.ofSeconds(Long.getLong("carga.duracion", 30));
+	private static final int PRODUCTOS_FRIOS = Integer.getInteger("carga.productos", 500);
+	private static final int STOCK_INAGOTABLE = 1_000_000_000;
+	private static final String[] BUSQUEDAS = {"oso", "pan", "drag", "unic", "conejo", "peluche 1", "suav", "fantas"};
+
+	@Test
+	void mezclaRealista() throws Exception {
+		try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(BackendPeluchemaniaApplication.class)
+				.run("--spring.profiles.active=carga")) {
+
+			String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+			JwtUtil jwtUtil = contexto.getBean(JwtUtil.class);
+			String tokenCliente = jwtUtil.generateToken(
+					new User("cliente@gmail.com", "x", List.of(new SimpleGrantedAuthority("ROLE_CLIENTE"))));
+			String tokenAdmin = jwtUtil.generateToken(
+					new User("admin@duoc.cl", "x", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+			// 1. Catálogo: el producto caliente y muchos fríos, todos con stock que no se agota
+			ProductoService productoService = contexto.getBean(ProductoService.class);
+			Categoria categoria = contexto.getBean(CategoriaRepository.class).findAll().get(0);
+			Producto caliente = contexto.getBean(ProductoRepository.class)
+					.findById(productoService.listarProductos().get(0).id()).orElseThrow();
+			caliente.setStock(STOCK_INAGOTABLE);
+			productoService.guardarProducto(caliente);
+			List<Producto> frios = new ArrayList<>(PRODUCTOS_FRIOS);
+			for (int i = 0; i < PRODUCTOS_FRIOS; i++) {
+				Producto p = new Producto();
+				p.setNombre("Peluche " + i + (i % 2 == 0 ? " Oso" : " Conejo"));
+				p.setDescripcion("Peluche suave de prueba de carga número " + i);
+				p.setPrecio(5990.0 + i);
+				p.setStock(STOCK_INAGOTABLE);
+				p.setOnSale(i % 5 == 0);
+				p.setDiscountPercentage(i % 5 == 0 ? 0.1 : 0.0);
+				p.setCategoria(categoria);
+				frios.add(productoService.guardarProducto(p));
+			}
+
+			// 2. Mezcla ponderada (pesos relativos)
+			List<GeneradorCarga.Operacion> mezcla = List.of(
+					new GeneradorCarga.Operacion("GET /api/productos/catalogo", 20,
+							() -> get(base + "/api/productos/catalogo?limite=20")),
+					new GeneradorCarga.Operacion("GET /api/productos/{id}", 20,
+							() -> get(base + "/api/productos/" + alAzar(frios).getId())),
+					new GeneradorCarga.Operacion("GET /api/productos/buscar", 10,
+							() -> get(base + "/api/productos/buscar?q=" + BUSQUEDAS[ThreadLocalRandom.current().nextInt(BUSQUEDAS.length)].replace(" ", "+"))),
+					new GeneradorCarga.Operacion("GET /api/productos", 5,
+							() -> get(base + "/api/productos")),
+					new GeneradorCarga.Operacion("GET /api/categorias", 5,
+							() -> get(base + "/api/categorias")),
+					new GeneradorCarga.Operacion("POST /api/auth/login", 2,
+							() -> post(base + "/api/auth/login", null,
+									"{\"email\":\"cliente@gmail.com\",\"password\":\"cliente23\"}")),
+					new GeneradorCarga.Operacion("POST checkout (caliente)", 4,
+							() -> post(base + "/api/checkout/purchase", tokenCliente, compra(List.of(caliente)))),
+					new GeneradorCarga.Operacion("POST checkout (fríos)", 4,
+							() -> post(base + "/api/checkout/purchase", tokenCliente,
+									compra(List.of(alAzar(frios), alAzar(frios), alAzar(frios))))),
+					new GeneradorCarga.Operacion("PUT /api/productos/{id} (admin)", 1,
+							() -> edicion(base, tokenAdmin, alAzar(frios), categoria)));
+
+			List<GeneradorCarga.Resultado> resultados = new GeneradorCarga().ejecutar(mezcla, CONCURRENCIA, CALENTAMIENTO, DURACION);
+
+			System.out.println("=== CAPACIDAD (" + CONCURRENCIA + " clientes, " + DURACION.toSeconds() + " s, "
+					+ Runtime.getRuntime().availableProcessors() + " CPU) ===");
+			resultados.forEach(System.out::println);
+			System.out.printf("TOTAL %.1f req/s%n", resultados.stream().mapToDouble(GeneradorCarga.Resultado::porSegundo).sum());
+
+			assertTrue(resultados.stream().allMatch(r -> r.peticiones() > 0));
+			// Stock inagotable y credenciales válidas: un 4xx significa que la mezcla no mide lo que dice
+			assertTrue(resultados.stream().allMatch(r -> r.rechazadas() == 0));
+		}
+	}
+
+	private static HttpRequest get(String url) {
+		return HttpRequest.newBuilder(URI.create(url)).GET().build();
+	}
+
+	private static HttpRequest post(String url, String token, String json) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json));
+		if (token != null) {
+			builder.header("Authorization", "Bearer " + token);
+		}
+		return builder.build();
+	}
+
+	private static HttpRequest edicion(String base, String token, Producto p, Categoria categoria) {
+		double precio = 5990.0 + ThreadLocalRandom.current().nextInt(1000);
+		String json = "{\"nombre\":\"" + p.getNombre() + "\",\"descripcion\":\"" + p.getDescripcion() + "\"" +
+				",\"precio\":" + precio + ",\"stock\":" + STOCK_INAGOTABLE +
+				",\"onSale\":false,\"discountPercentage\":0.0,\"categoria\":{\"id\":" + categoria.getId() + "}}";
+		return HttpRequest.newBuilder(URI.create(base + "/api/productos/" + p.getId()))
+				.header("Content-Type", "application/json")
+				.header("Authorization", "Bearer " + token)
+				.PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+	}
+
+	private static String compra(List<Producto> productos) {
+		StringBuilder items = new StringBuilder();
+		double total = 0;
+		for (Producto p : productos) {
+			if (!items.isEmpty()) {
+				items.append(',');
+			}
+			items.append("{\"id\":").append(p.getId()).append(",\"quantity\":1,\"precio\":").append(p.getPrecio()).append('}');
+			total += p.getPrecio();
+		}
+		return "{\"userId\":\"cliente@gmail.com\",\"total\":" + total + ",\"cartItems\":[" + items + "]}";
+	}
+
+	private static <T> T alAzar(List<T> lista) {
+		return lista.get(ThreadLocalRandom.current().nextInt(lista.size()));
+	}
+}
@@ -0,0 +1,126 @@
+package com.peluchemania.backend.carga;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Generador de carga HTTP simple: N clientes concurrentes repiten una mezcla ponderada
+ * de peticiones durante un tiempo fijo y se reportan throughput y percentiles por endpoint.
+ * Solo un 2xx cuenta como atendida (throughput y latencias); los 4xx se informan aparte como
+ * rechazadas y todo lo demás (5xx, fallo de conexión) como error.
+ */
+public class GeneradorCarga {
+
+    // Un tipo de petición de la mezcla, con su peso relativo
+    public record Operacion(String nombre, int peso, Supplier<HttpRequest> peticion) {
+    }
+
+    public record Resultado(String nombre, long peticiones, long rechazadas, long errores, double porSegundo,
+                            double p50Ms, double p99Ms, double p999Ms) {
+        @Override
+        public String toString() {
+            return String.format("%-28s %8d req %6d 4xx %6d err %9.1f req/s  p50 %7.2f ms  p99 %7.2f ms  p999 %7.2f ms",
+                    nombre, peticiones, rechazadas, errores, porSegundo, p50Ms, p99Ms, p999Ms);
+        }
+    }
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public List<Resultado> ejecutar(List<Operacion> mezcla, int concurrencia, Duration calentamiento, Duration duracion)
+            throws InterruptedException {
+        correr(mezcla, concurrencia, calentamiento, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+        Map<String, List<Long>> latencias = new ConcurrentHashMap<>();
+        Map<String, AtomicLong> rechazadas = new ConcurrentHashMap<>();
+        Map<String, AtomicLong> errores = new ConcurrentHashMap<>();
+        long inicio = System.nanoTime();
+        correr(mezcla, concurrencia, duracion, latencias, rechazadas, errores);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        List<Resultado> resultados = new ArrayList<>();
+        for (Operacion op : mezcla) {
+            List<Long> muestras = latencias.getOrDefault(op.nombre(), List.of());
+            long[] ordenadas;
+            synchronized (muestras) {
+                ordenadas = muestras.stream().mapToLong(Long::longValue).toArray();
+            }
+            Arrays.sort(ordenadas);
+            resultados.add(new Resultado(op.nombre(), ordenadas.length,
+                    rechazadas.getOrDefault(op.nombre(), new AtomicLong()).get(),
+                    errores.getOrDefault(op.nombre(), new AtomicLong()).get(),
+                    ordenadas.length / segundos,
+                    percentil(ordenadas, 0.50), percentil(ordenadas, 0.99), percentil(ordenadas, 0.999)));
+        }
+        return resultados;
+    }
+
+    private void correr(List<Operacion> mezcla, int concurrencia, Duration duracion,
+                        Map<String, List<Long>> latencias, Map<String, AtomicLong> rechazadas,
+                        Map<String, AtomicLong> errores) throws InterruptedException {
+        int pesoTotal = mezcla.stream().mapToInt(Operacion::peso).sum();
+        long fin = System.nanoTime() + duracion.toNanos();
+        ExecutorService clientes = Executors.newFixedThreadPool(concurrencia);
+        for (int i = 0; i < concurrencia; i++) {
+            clientes.execute(() -> {
+                while (System.nanoTime() < fin) {
+                    Operacion op = elegir(mezcla, pesoTotal);
+                    long t0 = System.nanoTime();
+                    int status;
+                    try {
+                        status = cliente.send(op.peticion().get(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    long nanos = System.nanoTime() - t0;
+                    if (status >= 200 && status < 300) {
+                        List<Long> muestras = latencias.computeIfAbsent(op.nombre(), k -> new ArrayList<>());
+                        synchronized (muestras) {
+                            muestras.add(nanos);
+                        }
+                    } else if (status >= 400 && status < 500) {
+                        // Un 401/409/429 responde rápido: contarlo como atendido inflaría el throughput
+                        rechazadas.computeIfAbsent(op.nombre(), k -> new AtomicLong()).incrementAndGet();
+                    } else {
+                        errores.computeIfAbsent(op.nombre(), k -> new AtomicLong()).incrementAndGet();
+                    }
+                }
+            });
+        }
+        clientes.shutdown();
+        clientes.awaitTermination(duracion.toSeconds() + 60, TimeUnit.SECONDS);
+    }
+
+    private static Operacion elegir(List<Operacion> mezcla, int pesoTotal) {
+        int r = ThreadLocalRandom.current().nextInt(pesoTotal);
+        for (Operacion op : mezcla) {
+            r -= op.peso();
+            if (r < 0) {
+                return op;
+            }
+        }
+        return mezcla.get(mezcla.size() - 1);
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1);
+        return ordenadas[Math.max(0, indice)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,89 @@
+package com.peluchemania.backend.carga;
+
+import com.peluchemania.backend.BackendPeluchemaniaApplication;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.ProductoRepository;
+import com.peluchemania.backend.security.JwtUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara hilos de plataforma y virtuales con la misma mezcla sobre catálogo y checkout.
+ * Los hilos virtuales requieren Java 21+: con un JRE anterior solo se mide el modo plataforma.
+ * <p>
+ * Ejecutar con: mvn test -Pbenchmark -Dtest=HilosVirtualesBenchmarkTest
+ */
+@Tag("benchmark")
+class HilosVirtualesBenchmarkTest {
+
+	private static final int CONCURRENCIA = Integer.getInteger("carga.concurrencia", 400);
+	private static final Duration CALENTAMIENTO = Duration.ofSeconds(Long.getLong("carga.calentamiento", 5));
+	private static final Duration DURACION = Duration.ofSeconds(Long.getLong("carga.duracion", 20));
+
+	@Test
+	void compararPlataformaYVirtuales() throws Exception {
+		List<GeneradorCarga.Resultado> plataforma = medir(false);
+		imprimir("HILOS DE PLATAFORMA", plataforma);
+
+		if (Runtime.version().feature() >= 21) {
+			imprimir("HILOS VIRTUALES", medir(true));
+		} else {
+			System.out.println("Hilos virtuales omitidos: se necesita Java 21+ (JRE actual " + Runtime.version() + ")");
+		}
+
+		assertTrue(plataforma.stream().allMatch(r -> r.peticiones() > 0));
+		// Ninguna operación de la mezcla debería rechazarse (401, 409 por stock...): si pasa, la mezcla está mal armada
+		assertTrue(plataforma.stream().allMatch(r -> r.rechazadas() == 0));
+	}
+
+	private List<GeneradorCarga.Resultado> medir(boolean virtuales) throws Exception {
+		String modo = virtuales ? "virtual" : "plataforma";
+		try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(BackendPeluchemaniaApplication.class)
+				.run(
+						"--spring.profiles.active=carga",
+						"--spring.threads.virtual.enabled=" + virtuales,
+						"--spring.datasource.url=jdbc:h2:mem:carga-" + modo + ";DB_CLOSE_DELAY=-1")) {
+
+			String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+			String token = contexto.getBean(JwtUtil.class).generateToken(
+					new User("cliente@gmail.com", "x", List.of(new SimpleGrantedAuthority("ROLE_CLIENTE"))));
+
+			// Producto con stock de sobra para que el checkout no se agote durante la prueba
+			ProductoRepository productos = contexto.getBean(ProductoRepository.class);
+			Producto oso = productos.findAll().get(0);
+			oso.setStock(100_000_000);
+			productos.save(oso);
+			String compra = "{\"userId\":\"cliente@gmail.com\",\"total\":" + oso.getPrecio() +
+					",\"cartItems\":[{\"id\":" + oso.getId() + ",\"quantity\":1,\"precio\":" + oso.getPrecio() + "}]}";
+
+			List<GeneradorCarga.Operacion> mezcla = List.of(
+					new GeneradorCarga.Operacion("GET /api/productos", 6,
+							() -> HttpRequest.newBuilder(URI.create(base + "/api/productos")).GET().build()),
+					new GeneradorCarga.Operacion("GET /api/productos/low-stock", 3,
+							() -> HttpRequest.newBuilder(URI.create(base + "/api/productos/low-stock")).GET().build()),
+					new GeneradorCarga.Operacion("POST /api/checkout/purchase", 1,
+							() -> HttpRequest.newBuilder(URI.create(base + "/api/checkout/purchase"))
+									.header("Authorization", "Bearer " + token)
+									.header("Content-Type", "application/json")
+									.POST(HttpRequest.BodyPublishers.ofString(compra)).build()));
+
+			return new GeneradorCarga().ejecutar(mezcla, CONCURRENCIA, CALENTAMIENTO, DURACION);
+		}
+	}
+
+	private static void imprimir(String titulo, List<GeneradorCarga.Resultado> resultados) {
+		System.out.println("=== " + titulo + " (" + CONCURRENCIA + " clientes, " + DURACION.toSeconds() + " s) ===");
+		resultados.forEach(System.out::println);
+	}
+}
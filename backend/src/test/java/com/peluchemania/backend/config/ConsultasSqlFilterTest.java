@@ -0,0 +1,68 @@
+package com.peluchemania.backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsultasSqlFilterTest {
+
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+			ContadorSql.envolver(new DriverManagerDataSource("jdbc:h2:mem:contador-sql;DB_CLOSE_DELAY=-1", "sa", "")));
+
+	@Test
+	void cuentaSentenciasYAgrupaPorSql() {
+		jdbcTemplate.execute("create table if not exists oso (id int primary key, nombre varchar(50))");
+		jdbcTemplate.update("delete from oso");
+
+		ContadorSql.Medicion medicion = ContadorSql.iniciar();
+		try {
+			jdbcTemplate.batchUpdate("insert into oso values (?, ?)", List.of(
+					new Object[]{1, "Pardo"}, new Object[]{2, "Polar"}, new Object[]{3, "Panda"}));
+			ContadorSql.Medicion interna = ContadorSql.iniciar();
+			for (int id = 1; id <= 3; id++) {
+				jdbcTemplate.queryForObject("select nombre from oso where id = ?", String.class, id);
+			}
+			ContadorSql.terminar(interna);
+			assertEquals(3, interna.sentencias());
+		} finally {
+			ContadorSql.terminar(medicion);
+		}
+
+		// El batch es un solo viaje; la medición externa también ve lo de la interna
+		assertEquals(4, medicion.sentencias());
+		assertEquals("select nombre from oso where id = ?", medicion.masRepetida().getKey());
+		assertEquals(3, medicion.masRepetida().getValue());
+		assertNull(ContadorSql.actual());
+	}
+
+	@Test
+	void publicaCabeceraYMetricaYMarcaLasQueExcedenElPresupuesto() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ConsultasSqlFilter filtro = new ConsultasSqlFilter();
+		ReflectionTestUtils.setField(filtro, "meterRegistry", registry);
+		ReflectionTestUtils.setField(filtro, "presupuesto", 2);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos/7");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filtro.doFilter(request, response, (req, res) -> {
+			req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/productos/{id}");
+			for (int i = 0; i < 3; i++) {
+				jdbcTemplate.queryForObject("select 1", Integer.class);
+			}
+			res.getWriter().write("{}");
+		});
+
+		assertEquals("3", response.getHeader(ConsultasSqlFilter.CABECERA));
+		assertEquals(3.0, registry.get("http.server.requests.sql").tag("uri", "/api/productos/{id}").summary().totalAmount());
+		assertEquals(1.0, registry.get("http.server.requests.sql.excedidas").tag("method", "GET").counter().count());
+	}
+}
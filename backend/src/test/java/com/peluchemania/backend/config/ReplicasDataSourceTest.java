@@ -0,0 +1,106 @@
+package com.peluchemania.backend.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Enrutamiento primaria/réplica con dos H2 embebidas: cada una responde su propio nombre en "origen",
+ * y la réplica publica su retraso en "latido" (lo que en MySQL sería SHOW REPLICA STATUS).
+ */
+class ReplicasDataSourceTest {
+
+	private EmbeddedDatabase primaria;
+	private EmbeddedDatabase replica;
+	private ReplicasDataSource lecturas;
+	private JdbcTemplate jdbc;
+	private TransactionTemplate soloLectura;
+	private TransactionTemplate escritura;
+
+	@BeforeEach
+	void crear() {
+		primaria = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		replica = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		new JdbcTemplate(primaria).execute("create table origen (nombre varchar(20)); insert into origen values ('primaria')");
+		new JdbcTemplate(replica).execute("create table origen (nombre varchar(20)); insert into origen values ('replica');"
+				+ "create table latido (retraso int); insert into latido values (0)");
+
+		lecturas = new ReplicasDataSource(primaria, Map.of("replica-1", replica), Duration.ofSeconds(5), "select retraso from latido");
+		ReplicasConfig.Enrutador enrutador = new ReplicasConfig.Enrutador(primaria, lecturas);
+		DataSourceTransactionManager transacciones = new DataSourceTransactionManager(enrutador);
+		jdbc = new JdbcTemplate(enrutador);
+		soloLectura = new TransactionTemplate(transacciones);
+		soloLectura.setReadOnly(true);
+		escritura = new TransactionTemplate(transacciones);
+	}
+
+	@AfterEach
+	void cerrar() {
+		lecturas.close();
+		primaria.shutdown();
+		replica.shutdown();
+	}
+
+	@Test
+	void lecturasALaReplicaYEscriturasALaPrimaria() {
+		// Hasta la primera verificación la réplica no se da por sana
+		assertEquals("primaria", origen(soloLectura));
+
+		lecturas.verificar();
+
+		assertEquals("replica", origen(soloLectura));
+		assertEquals("primaria", origen(escritura));
+		escritura.executeWithoutResult(estado -> jdbc.update("insert into origen values ('nueva')"));
+		assertEquals(2, new JdbcTemplate(primaria).queryForObject("select count(*) from origen", Integer.class));
+		assertEquals(1, new JdbcTemplate(replica).queryForObject("select count(*) from origen", Integer.class));
+	}
+
+	@Test
+	void replicaAtrasadaODetenidaSaleDelRepartoYVuelve() {
+		lecturas.verificar();
+		assertEquals("replica", origen(soloLectura));
+
+		retraso(30);
+		assertEquals("primaria", origen(soloLectura));
+		assertEquals(0, lecturas.sanas());
+
+		retraso(null);
+		assertEquals("primaria", origen(soloLectura));
+
+		retraso(2);
+		assertEquals("replica", origen(soloLectura));
+		assertEquals(1, lecturas.sanas());
+	}
+
+	@Test
+	void replicaCaidaPasaALaPrimaria() {
+		lecturas.verificar();
+		replica.shutdown();
+
+		lecturas.verificar();
+
+		long antes = lecturas.lecturasEnPrimaria();
+		assertEquals("primaria", origen(soloLectura));
+		assertEquals(antes + 1, lecturas.lecturasEnPrimaria());
+	}
+
+	private String origen(TransactionTemplate transaccion) {
+		return transaccion.execute(estado -> jdbc.queryForObject("select nombre from origen", String.class));
+	}
+
+	private void retraso(Integer segundos) {
+		new JdbcTemplate(replica).update("update latido set retraso = ?", segundos);
+		lecturas.verificar();
+	}
+}
@@ -0,0 +1,114 @@
+package com.peluchemania.backend.config;
+
+import com.peluchemania.backend.dto.ProductoResumen;
+import com.peluchemania.backend.entity.Categoria;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.CategoriaRepository;
+import com.peluchemania.backend.repository.ProductoRepository;
+import com.peluchemania.backend.service.CategoriaService;
+import com.peluchemania.backend.service.HistorialComprasService;
+import com.peluchemania.backend.service.ProductoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Backend completo con una réplica H2 que nunca replica: tras una escritura queda atrasada para siempre.
+ * Las recargas de la caché y las lecturas "leer lo propio" tienen que salir igual de la primaria.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:replicas-primaria;DB_CLOSE_DELAY=-1",
+		"datasource.replicas.urls=" + ReplicasLecturasPrimariaTest.URL_REPLICA,
+		"datasource.replicas.consulta-retraso=select retraso from latido",
+		"datasource.replicas.intervalo-verificacion=100ms"})
+@ActiveProfiles("carga")
+class ReplicasLecturasPrimariaTest {
+
+	static final String URL_REPLICA = "jdbc:h2:mem:replicas-replica;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private ProductoService productoService;
+
+	@Autowired
+	private CategoriaService categoriaService;
+
+	@Autowired
+	private HistorialComprasService historialComprasService;
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Autowired
+	private CategoriaRepository categoriaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final JdbcTemplate replica = new JdbcTemplate(
+			new SimpleDriverDataSource(new org.h2.Driver(), URL_REPLICA, "sa", ""));
+
+	// La réplica arranca como copia de las tablas del catálogo (sin boletas); mientras no existe
+	// "latido" la verificación falla y todo se lee de la primaria, incluido el arranque
+	@BeforeEach
+	void copiarCatalogoALaReplica() {
+		replica.execute("drop all objects");
+		replica.execute("create table categoria (id bigint primary key, nombre varchar(255), umbral_stock_bajo int)");
+		replica.execute("create table producto (id bigint primary key, nombre varchar(255), descripcion varchar(2000), "
+				+ "precio double precision, stock int, on_sale boolean, discount_percentage double precision, "
+				+ "url_imagen varchar(2000), umbral_stock_bajo int, categoria_id bigint)");
+		copiar("select id, nombre, umbral_stock_bajo from categoria", "insert into categoria values (?, ?, ?)");
+		copiar("select id, nombre, descripcion, precio, stock, on_sale, discount_percentage, url_imagen, umbral_stock_bajo, categoria_id "
+				+ "from producto", "insert into producto values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		replica.execute("create table latido (retraso int); insert into latido values (0)");
+	}
+
+	@Test
+	void recargasDeCacheYLecturasPropiasSalenDeLaPrimaria() throws Exception {
+		// 1. Llenar las cachés y escribir en la primaria (invalida las cachés; la réplica queda atrasada)
+		Long id = productoService.listarProductos().get(0).id();
+		Long categoriaId = productoService.obtenerPorId(id).orElseThrow().categoria().id();
+		categoriaService.listarCategorias();
+
+		Producto producto = productoService.obtenerParaEditar(id).orElseThrow();
+		producto.setNombre("Nombre en la primaria");
+		productoService.guardarProducto(producto);
+		Categoria categoria = categoriaService.obtenerParaEditar(categoriaId).orElseThrow();
+		categoria.setNombre("Categoría en la primaria");
+		categoriaService.guardarCategoria(categoria);
+
+		// 2. Las lecturas readOnly de Spring Data ya van a la réplica (si no, la prueba no probaría nada)
+		long limite = System.currentTimeMillis() + 5000;
+		while ("Nombre en la primaria".equals(productoRepository.findById(id).orElseThrow().getNombre())
+				&& System.currentTimeMillis() < limite) {
+			Thread.sleep(50);
+		}
+		assertNotEquals("Nombre en la primaria", productoRepository.findById(id).orElseThrow().getNombre());
+		assertNotEquals("Categoría en la primaria", categoriaRepository.findById(categoriaId).orElseThrow().getNombre());
+
+		// 3. Las cachés se recargan desde la primaria
+		assertEquals("Nombre en la primaria", productoService.obtenerPorId(id).orElseThrow().nombre());
+		assertTrue(productoService.listarProductos().stream().map(ProductoResumen::nombre).anyMatch("Nombre en la primaria"::equals));
+		assertTrue(productoService.listarPorCategoria(categoriaId).stream().map(ProductoResumen::nombre).anyMatch("Nombre en la primaria"::equals));
+		assertTrue(categoriaService.listarCategorias().stream().anyMatch(c -> "Categoría en la primaria".equals(c.nombre())));
+
+		// 4. El historial de compras no existe en la réplica: solo responde si lee de la primaria
+		assertNotNull(historialComprasService.pagina("cliente@gmail.com", null, 10));
+
+		// 5. Editar lee la entidad de la primaria
+		assertEquals("Nombre en la primaria", productoService.obtenerParaEditar(id).orElseThrow().getNombre());
+	}
+
+	private void copiar(String consulta, String insercion) {
+		for (Map<String, Object> fila : jdbcTemplate.queryForList(consulta)) {
+			replica.update(insercion, fila.values().toArray());
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.peluchemania.backend.controller;
+
+import com.peluchemania.backend.repository.UsuarioRepository;
+import com.peluchemania.backend.security.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Endpoints que un cliente logueado NO debe poder usar sobre datos ajenos o de administración.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("carga")
+class AutorizacionEndpointsTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Test
+	void boletasDeUnUsuarioSoloParaElMismoOAdmin() throws Exception {
+		Long idCliente = usuarioRepository.findByEmail("cliente@gmail.com").orElseThrow().getId();
+		Long idAdmin = usuarioRepository.findByEmail("admin@duoc.cl").orElseThrow().getId();
+
+		mockMvc.perform(get("/api/users/" + idCliente + "/boletas").header("Authorization", cliente()))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/users/" + idAdmin + "/boletas").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/users/999999/boletas").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/users/" + idCliente + "/boletas").header("Authorization", admin()))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void cacheDelCatalogoSoloParaAdmin() throws Exception {
+		mockMvc.perform(get("/api/cache/estadisticas").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(delete("/api/cache").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/cache/estadisticas").header("Authorization", admin()))
+				.andExpect(status().isOk());
+		mockMvc.perform(delete("/api/cache").header("Authorization", admin()))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void alertasDeStockSoloParaAdmin() throws Exception {
+		mockMvc.perform(get("/api/alertas-stock").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/alertas-stock/stream").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(put("/api/alertas-stock/umbrales/productos/1").header("Authorization", cliente())
+						.contentType(MediaType.APPLICATION_JSON).content("{\"umbral\": 0}"))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(put("/api/alertas-stock/umbrales/categorias/1").header("Authorization", cliente())
+						.contentType(MediaType.APPLICATION_JSON).content("{\"umbral\": 0}"))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/alertas-stock").header("Authorization", admin()))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void reportesDeVentasSoloParaAdmin() throws Exception {
+		for (String url : List.of("/api/reportes/ventas-diarias", "/api/reportes/top-productos", "/api/reportes/ventas-categorias")) {
+			mockMvc.perform(get(url).header("Authorization", cliente()))
+					.andExpect(status().isForbidden());
+			mockMvc.perform(get(url).header("Authorization", admin()))
+					.andExpect(status().isOk());
+		}
+		mockMvc.perform(post("/api/reportes/reconstruir").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void paginaYExportDeBoletasSoloParaAdmin() throws Exception {
+		mockMvc.perform(get("/api/boletas/pagina").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/boletas/export").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/boletas/pagina").header("Authorization", admin()))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/boletas/export?formato=csv").header("Authorization", admin()))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/boletas/export?formato=xml").header("Authorization", admin()))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void metricasSoloParaAdmin() throws Exception {
+		mockMvc.perform(get("/api/metricas/hashing").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/metricas/hashing").header("Authorization", admin()))
+				.andExpect(status().isOk());
+		// Sin checkout asíncrono en este perfil el admin recibe 404; el cliente ni llega al controlador
+		mockMvc.perform(get("/api/metricas/pedidos").header("Authorization", cliente()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/metricas/pedidos").header("Authorization", admin()))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void tokenFirmadoSinRolEs401() throws Exception {
+		Key clave = (Key) ReflectionTestUtils.getField(jwtUtil, "signingKey");
+		String sinRol = Jwts.builder().setSubject("cliente@gmail.com")
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(clave, SignatureAlgorithm.HS256).compact();
+
+		mockMvc.perform(get("/api/users/me/boletas").header("Authorization", "Bearer " + sinRol))
+				.andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/api/users/me/boletas"))
+				.andExpect(status().isUnauthorized());
+	}
+
+	private String cliente() {
+		return token("cliente@gmail.com", "ROLE_CLIENTE");
+	}
+
+	private String admin() {
+		return token("admin@duoc.cl", "ROLE_ADMIN");
+	}
+
+	private String token(String email, String rol) {
+		return "Bearer " + jwtUtil.generateToken(new User(email, "x", List.of(new SimpleGrantedAuthority(rol))));
+	}
+}
@@ -0,0 +1,177 @@
+package com.peluchemania.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.peluchemania.backend.entity.Categoria;
+import com.peluchemania.backend.repository.CategoriaRepository;
+import com.peluchemania.backend.security.JwtUtil;
+import com.peluchemania.backend.service.CatalogoCache;
+import com.peluchemania.backend.service.CatalogoSerializado;
+import com.peluchemania.backend.service.ProductoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Catálogo en JSON, Smile, CBOR y gzip, con ETag por contenido.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("carga")
+class CatalogoNegociacionTest {
+
+	private static final String SMILE = "application/x-jackson-smile";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private CatalogoCache catalogoCache;
+
+	@Autowired
+	private CatalogoSerializado catalogoSerializado;
+
+	@Autowired
+	private ProductoService productoService;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private CategoriaRepository categoriaRepository;
+
+	@Test
+	void mismosProductosEnTodosLosFormatos() throws Exception {
+		JsonNode json = objectMapper.readTree(cuerpo("/api/productos", "application/json", null));
+		JsonNode smile = new SmileMapper().readTree(cuerpo("/api/productos", SMILE, null));
+		JsonNode cbor = new CBORMapper().readTree(cuerpo("/api/productos", "application/cbor", null));
+		byte[] gzip = cuerpo("/api/productos", "application/json", "gzip, deflate, br");
+
+		assertTrue(json.size() > 0);
+		assertEquals(json, smile);
+		assertEquals(json, cbor);
+		assertEquals(json, objectMapper.readTree(new GZIPInputStream(new ByteArrayInputStream(gzip)).readAllBytes()));
+		assertTrue(gzip.length < objectMapper.writeValueAsBytes(json).length);
+	}
+
+	@Test
+	void gzipSoloSiSuCalidadEsMayorQueCero() throws Exception {
+		assertTrue(RespuestaCatalogo.aceptaGzip(List.of("gzip, deflate, br")));
+		assertTrue(RespuestaCatalogo.aceptaGzip(List.of("br;q=1.0, GZIP;q=0.5")));
+		assertTrue(RespuestaCatalogo.aceptaGzip(List.of("*")));
+		assertFalse(RespuestaCatalogo.aceptaGzip(List.of("gzip;q=0")));
+		assertFalse(RespuestaCatalogo.aceptaGzip(List.of("gzip; q=0.0, *;q=1")));
+		assertFalse(RespuestaCatalogo.aceptaGzip(List.of("deflate, *;q=0")));
+		assertFalse(RespuestaCatalogo.aceptaGzip(List.of("identity")));
+
+		mockMvc.perform(get("/api/productos").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	void elNoModificadoDevuelveElEtagQueCoincidio() throws Exception {
+		String plano = mockMvc.perform(get("/api/productos"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		// Revalida la versión plana aunque ahora acepte gzip: el 304 confirma la que tiene
+		mockMvc.perform(get("/api/productos").header(HttpHeaders.IF_NONE_MATCH, plano).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, plano));
+
+		String comprimido = mockMvc.perform(get("/api/productos").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/api/productos").header(HttpHeaders.IF_NONE_MATCH, comprimido).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, comprimido));
+	}
+
+	@Test
+	void etagPorContenidoDelCatalogo() throws Exception {
+		String etag = mockMvc.perform(get("/api/categorias"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		// Invalidar sin cambios (o reiniciar, u otra instancia) da el mismo contenido: sigue siendo 304
+		catalogoCache.categoriasModificadas();
+		mockMvc.perform(get("/api/categorias").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+
+		Categoria categoria = categoriaRepository.findAll().get(0);
+		String nombre = categoria.getNombre();
+		try {
+			categoria.setNombre(nombre + " (editada)");
+			categoriaRepository.save(categoria);
+			catalogoCache.categoriasModificadas();
+
+			mockMvc.perform(get("/api/categorias").header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(status().isOk())
+					.andExpect(result -> assertNotEquals(etag, result.getResponse().getHeader(HttpHeaders.ETAG)));
+		} finally {
+			categoria.setNombre(nombre);
+			categoriaRepository.save(categoria);
+			catalogoCache.categoriasModificadas();
+		}
+	}
+
+	@Test
+	void repetirNoVuelveASerializar() {
+		CatalogoSerializado.Serializado primera = catalogoSerializado.obtener(
+				"productos", CatalogoSerializado.Formato.JSON, productoService::listarProductos);
+		CatalogoSerializado.Serializado segunda = catalogoSerializado.obtener(
+				"productos", CatalogoSerializado.Formato.JSON, () -> fail("No debía volver a cargar el catálogo"));
+
+		assertSame(primera, segunda);
+	}
+
+	@Test
+	void catalogoPaginadoRechazaOrdenOCursorInvalido() throws Exception {
+		mockMvc.perform(get("/api/productos/catalogo?orden=nombre")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/productos/catalogo?orden=PRECIO")).andExpect(status().isOk());
+
+		// Cursor de orden=id ("1") usado para seguir un recorrido por precio
+		mockMvc.perform(get("/api/productos/catalogo?orden=precio&cursor=MQ")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void boletasTambienNegocianSmile() throws Exception {
+		String token = jwtUtil.generateToken(new User("admin@duoc.cl", "x", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+		mockMvc.perform(get("/api/boletas").accept(SMILE).header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, SMILE));
+	}
+
+	private byte[] cuerpo(String url, String accept, String acceptEncoding) throws Exception {
+		var peticion = get(url).header(HttpHeaders.ACCEPT, accept);
+		if (acceptEncoding != null) {
+			peticion.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+		}
+		MvcResult resultado = mockMvc.perform(peticion).andExpect(status().isOk()).andReturn();
+		assertEquals(acceptEncoding != null ? "gzip" : null, resultado.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+		return resultado.getResponse().getContentAsByteArray();
+	}
+}
@@ -0,0 +1,69 @@
+package com.peluchemania.backend.controller;
+
+import com.peluchemania.backend.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Subida multipart de imágenes: la URL devuelta se sirve tal cual y el tipo se valida por contenido.
+ */
+@SpringBootTest(properties = "imagenes.directorio=target/imagenes-test")
+@AutoConfigureMockMvc
+@ActiveProfiles("carga")
+class ImagenSubidaTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Test
+	void subeYSirveLaImagen() throws Exception {
+		byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16, 'J', 'F', 'I', 'F', 0, 1};
+
+		MvcResult subida = mockMvc.perform(multipart("/api/productos/imagenes")
+						.file(new MockMultipartFile("archivo", "oso.bin", "application/octet-stream", jpeg))
+						.header("Authorization", "Bearer " + token()))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.urlImagen").value(endsWith(".jpg")))
+				.andReturn();
+
+		String url = subida.getResponse().getHeader("Location");
+		byte[] servida = mockMvc.perform(get(url))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", "image/jpeg"))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertArrayEquals(jpeg, servida);
+	}
+
+	@Test
+	void rechazaLoQueNoEsImagenYExigeLogin() throws Exception {
+		MockMultipartFile html = new MockMultipartFile("archivo", "oso.png", "image/png", "<script>".getBytes());
+
+		mockMvc.perform(multipart("/api/productos/imagenes").file(html).header("Authorization", "Bearer " + token()))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(multipart("/api/productos/imagenes").file(html))
+				.andExpect(status().isUnauthorized());
+	}
+
+	private String token() {
+		return jwtUtil.generateToken(new User("admin@duoc.cl", "x", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+	}
+}
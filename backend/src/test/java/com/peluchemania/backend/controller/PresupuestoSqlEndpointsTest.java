@@ -0,0 +1,190 @@
+package com.peluchemania.backend.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.ProductoRepository;
+import com.peluchemania.backend.security.JwtUtil;
+import com.peluchemania.backend.service.CatalogoCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static com.peluchemania.backend.soporte.PresupuestoSql.assertSentencias;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto exacto de sentencias SQL por endpoint (app completa sobre H2, perfil "carga").
+ * Si un cambio agrega un N+1 el test falla y lista el SQL repetido; si lo mejora, hay que bajar el número.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("carga")
+class PresupuestoSqlEndpointsTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CatalogoCache catalogoCache;
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	private String tokenCliente;
+	private String tokenAdmin;
+	private List<Producto> productos;
+	// Boleta de 3 líneas (3 productos distintos) de la compra de calentamiento
+	private Long boletaId;
+
+	@BeforeEach
+	void prepararYEnfriarCache() throws Exception {
+		tokenCliente = jwtUtil.generateToken(
+				new User("cliente@gmail.com", "x", List.of(new SimpleGrantedAuthority("ROLE_CLIENTE"))));
+		tokenAdmin = jwtUtil.generateToken(
+				new User("admin@duoc.cl", "x", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+		productos = productoRepository.findAll().subList(0, 3);
+		productos.forEach(p -> p.setStock(1_000_000));
+		productoRepository.saveAll(productos);
+		// Compra sin medir: calienta secuencias y cachés de Hibernate, así los conteos no dependen del orden de los tests
+		String respuesta = mockMvc.perform(compra(3)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		boletaId = ((Number) JsonPath.read(respuesta, "$.boletaId")).longValue();
+		// Por CatalogoCache y no por el CacheManager: así también se descartan los listados ya serializados
+		catalogoCache.categoriasModificadas();
+	}
+
+	@Test
+	void catalogoPublico() {
+		Producto producto = productos.get(0);
+		// Productos con su categoría en un solo JOIN; la segunda vez sale de la caché
+		presupuesto(1, get("/api/productos"));
+		presupuesto(0, get("/api/productos"));
+		presupuesto(1, get("/api/productos/" + producto.getId()));
+		presupuesto(1, get("/api/productos/catalogo?limite=20"));
+		presupuesto(1, get("/api/productos/categoria/" + producto.getCategoria().getId()));
+		presupuesto(1, get("/api/categorias"));
+	}
+
+	@Test
+	void checkoutNoCreceConLasLineasDelCarro() {
+		// stock (batch) + SELECT de productos + boleta + detalles (batch), con 1 o 3 líneas; los rollups se vuelcan aparte
+		presupuesto(4, compra(1));
+		presupuesto(4, compra(3));
+	}
+
+	@Test
+	void compraCorrigeElStockSinEnfriarLosListados() throws Exception {
+		Producto producto = productos.get(0);
+		String porCategoria = "/api/productos/categoria/" + producto.getCategoria().getId();
+		presupuesto(1, get("/api/productos"));
+		presupuesto(1, get(porCategoria));
+		presupuesto(1, get("/api/categorias"));
+
+		// stock (batch) + SELECT de productos + boleta + detalles (batch) + 1 SELECT de (id, stock) para corregir los listados
+		presupuesto(5, compra(1));
+
+		// Los listados siguen en caché, ya con el stock nuevo
+		Integer stock = productoRepository.findStockById(producto.getId());
+		String stockDelProducto = "$[?(@.id == " + producto.getId() + ")].stock";
+		assertSentencias(0, () -> mockMvc.perform(get("/api/productos"))
+				.andExpect(jsonPath(stockDelProducto).value(contains(stock))));
+		assertSentencias(0, () -> mockMvc.perform(get(porCategoria))
+				.andExpect(jsonPath(stockDelProducto).value(contains(stock))));
+		presupuesto(0, get("/api/categorias"));
+	}
+
+	@Test
+	void carroInvalidoSeRechazaSinTocarLaBd() {
+		assertSentencias(0, () -> mockMvc.perform(post("/api/checkout/purchase")
+						.header("Authorization", "Bearer " + tokenCliente)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userId\":\"cliente@gmail.com\",\"total\":1,\"cartItems\":[{\"id\":1,\"quantity\":-1,\"precio\":1}]}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Línea 1 del carro: quantity debe estar entre 1 y 1000")));
+	}
+
+	@Test
+	void historialDelUsuario() {
+		// 1 SELECT de boletas + 1 SELECT de todas sus líneas
+		presupuesto(2, get("/api/users/me/boletas").header("Authorization", "Bearer " + tokenCliente));
+	}
+
+	@Test
+	void boletasAdmin() {
+		// Boleta no tiene asociaciones: 1 SELECT aunque haya muchas
+		presupuesto(1, get("/api/boletas").header("Authorization", "Bearer " + tokenAdmin));
+		presupuesto(1, get("/api/boletas/pagina").header("Authorization", "Bearer " + tokenAdmin));
+		// Líneas con su boleta, producto y categoría en un JOIN: 1 SELECT con 3 líneas (no 1 + 1 + 3)
+		presupuesto(1, get("/api/boletas/" + boletaId + "/detalles").header("Authorization", "Bearer " + tokenAdmin));
+	}
+
+	@Test
+	void reportes() {
+		// Solo las tablas de rollup (con el nombre del producto o categoría por JOIN)
+		presupuesto(1, get("/api/reportes/ventas-diarias").header("Authorization", "Bearer " + tokenAdmin));
+		presupuesto(1, get("/api/reportes/top-productos").header("Authorization", "Bearer " + tokenAdmin));
+		presupuesto(1, get("/api/reportes/ventas-categorias").header("Authorization", "Bearer " + tokenAdmin));
+	}
+
+	@Test
+	void login() {
+		// El usuario se busca 2 veces: al autenticar (UserDetailsService) y para armar la respuesta
+		presupuesto(2, post("/api/auth/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"email\":\"cliente@gmail.com\",\"password\":\"cliente23\"}"));
+	}
+
+	@Test
+	void edicionDeProductosAdmin() {
+		// Editar y eliminar: findById de la primaria + el SELECT del merge de la entidad ya separada + la escritura
+		Producto producto = productos.get(1);
+		presupuesto(3, put("/api/productos/" + producto.getId())
+				.header("Authorization", "Bearer " + tokenAdmin)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"nombre\":\"" + producto.getNombre() + "\",\"precio\":" + producto.getPrecio()
+						+ ",\"stock\":1000000,\"categoria\":{\"id\":" + producto.getCategoria().getId() + "}}"));
+
+		Producto nuevo = new Producto();
+		nuevo.setNombre("Peluche para borrar");
+		nuevo.setPrecio(1.0);
+		nuevo.setStock(1);
+		Long id = productoRepository.save(nuevo).getId();
+		assertSentencias(3, () -> mockMvc.perform(delete("/api/productos/" + id).header("Authorization", "Bearer " + tokenAdmin))
+				.andExpect(status().isNoContent()));
+	}
+
+	private void presupuesto(int sentencias, MockHttpServletRequestBuilder peticion) {
+		assertSentencias(sentencias, () -> mockMvc.perform(peticion).andExpect(status().isOk()));
+	}
+
+	private MockHttpServletRequestBuilder compra(int lineas) {
+		StringBuilder items = new StringBuilder();
+		for (int i = 0; i < lineas; i++) {
+			Producto p = productos.get(i);
+			items.append(i > 0 ? "," : "")
+					.append("{\"id\":").append(p.getId()).append(",\"quantity\":1,\"precio\":").append(p.getPrecio()).append('}');
+		}
+		return post("/api/checkout/purchase")
+				.header("Authorization", "Bearer " + tokenCliente)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"userId\":\"cliente@gmail.com\",\"total\":1,\"cartItems\":[" + items + "]}");
+	}
+}
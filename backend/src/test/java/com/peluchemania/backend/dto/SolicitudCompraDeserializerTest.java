@@ -0,0 +1,63 @@
+package com.peluchemania.backend.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolicitudCompraDeserializerTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void leePayloadDelFrontendIgnorandoLosCamposDelProducto() throws Exception {
+		SolicitudCompra compra = leer("{\"userId\":\"cliente@gmail.com\",\"total\":\"29980\"," +
+				"\"shippingAddress\":{\"calle\":\"Av. Siempreviva 742\",\"depto\":\"12\",\"comuna\":\"Santiago\",\"region\":\"RM\"}," +
+				"\"cartItems\":[" +
+				"{\"id\":3,\"nombre\":\"Oso\",\"categoria\":{\"id\":1,\"nombre\":\"Osos\"},\"imagenes\":[\"a\",\"b\"],\"quantity\":2,\"precio\":9990}," +
+				"{\"id\":\"7\",\"quantity\":\"1\",\"precio\":\"10000.5\"}]}");
+
+		assertEquals("cliente@gmail.com", compra.userId());
+		assertEquals(29980.0, compra.total());
+		assertEquals("Av. Siempreviva 742, Santiago, RM", compra.direccionEntrega());
+		assertEquals(List.of(new LineaCompra(3L, 2, 9990.0), new LineaCompra(7L, 1, 10000.5)), compra.cartItems());
+	}
+
+	@Test
+	void sinDireccionEsRetiroEnTienda() throws Exception {
+		SolicitudCompra compra = leer("{\"userId\":\"a@b.cl\",\"total\":1,\"cartItems\":[{\"id\":1,\"quantity\":1,\"precio\":1}]}");
+
+		assertEquals("Retiro en tienda", compra.direccionEntrega());
+	}
+
+	@Test
+	void rechazaCarrosInvalidosAntesDeLlegarAlServicio() {
+		assertInvalido("Falta userId", "{\"total\":1,\"cartItems\":[{\"id\":1,\"quantity\":1,\"precio\":1}]}");
+		assertInvalido("El carro está vacío", "{\"userId\":\"a@b.cl\",\"total\":1,\"cartItems\":[]}");
+		assertInvalido("Línea 2 del carro: quantity debe estar entre 1 y 1000",
+				"{\"userId\":\"a@b.cl\",\"total\":1,\"cartItems\":[{\"id\":1,\"quantity\":1,\"precio\":1},{\"id\":2,\"quantity\":-3,\"precio\":1}]}");
+		assertInvalido("Línea 1 del carro: id de producto inválido",
+				"{\"userId\":\"a@b.cl\",\"total\":1,\"cartItems\":[{\"quantity\":1,\"precio\":1}]}");
+		assertInvalido("precio no es un número válido",
+				"{\"userId\":\"a@b.cl\",\"total\":1,\"cartItems\":[{\"id\":1,\"quantity\":1,\"precio\":\"gratis\"}]}");
+
+		StringBuilder enorme = new StringBuilder("{\"userId\":\"a@b.cl\",\"total\":1,\"cartItems\":[");
+		for (int i = 0; i <= SolicitudCompra.MAX_LINEAS; i++) {
+			enorme.append(i > 0 ? "," : "").append("{\"id\":1,\"quantity\":1,\"precio\":1}");
+		}
+		// Sin cerrar el JSON: se corta en la línea 101, el resto ni se lee
+		assertInvalido("El carro no puede tener más de 100 líneas", enorme.toString());
+	}
+
+	private SolicitudCompra leer(String json) throws Exception {
+		return objectMapper.readValue(json, SolicitudCompra.class);
+	}
+
+	private void assertInvalido(String motivo, String json) {
+		MismatchedInputException e = assertThrows(MismatchedInputException.class, () -> leer(json));
+		assertEquals(motivo, e.getOriginalMessage());
+	}
+}
@@ -0,0 +1,101 @@
+package com.peluchemania.backend.repository;
+
+import com.peluchemania.backend.dto.CursorCatalogo;
+import com.peluchemania.backend.dto.FiltroCatalogo;
+import com.peluchemania.backend.dto.ProductoResumen;
+import com.peluchemania.backend.entity.Categoria;
+import com.peluchemania.backend.entity.Producto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class ProductoRepositoryTest {
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Autowired
+	private CategoriaRepository categoriaRepository;
+
+	private Categoria osos;
+
+	@BeforeEach
+	void crearCatalogo() {
+		osos = new Categoria();
+		osos.setNombre("Osos");
+		Categoria animales = new Categoria();
+		animales.setNombre("Animales");
+		categoriaRepository.saveAll(List.of(osos, animales));
+
+		for (int i = 0; i < 25; i++) {
+			Producto p = new Producto();
+			p.setNombre("Peluche " + i);
+			p.setPrecio(1000.0 * (i % 5));
+			p.setStock(i);
+			p.setOnSale(i % 2 == 0);
+			p.setCategoria(i % 3 == 0 ? osos : animales);
+			productoRepository.save(p);
+		}
+	}
+
+	@Test
+	void recorreTodoElCatalogoPorPrecioSinRepetir() {
+		FiltroCatalogo filtro = new FiltroCatalogo(null, null, null, null, FiltroCatalogo.Orden.PRECIO);
+		List<ProductoResumen> vistos = new ArrayList<>();
+		CursorCatalogo cursor = null;
+
+		while (true) {
+			List<ProductoResumen> pagina = productoRepository.buscarCatalogo(filtro, cursor, 7);
+			vistos.addAll(pagina);
+			if (pagina.size() < 7) {
+				break;
+			}
+			cursor = CursorCatalogo.decodificar(CursorCatalogo.despuesDe(pagina.get(6), filtro.orden()).codificar());
+		}
+
+		assertEquals(25, vistos.size());
+		assertEquals(25, vistos.stream().map(ProductoResumen::id).distinct().count());
+		for (int i = 1; i < vistos.size(); i++) {
+			assertTrue(vistos.get(i - 1).precio() <= vistos.get(i).precio());
+		}
+	}
+
+	@Test
+	void productoSinPrecioNoRompeElOrdenPorPrecio() {
+		Producto sinPrecio = new Producto();
+		sinPrecio.setNombre("Peluche sin precio");
+		sinPrecio.setStock(1);
+		productoRepository.save(sinPrecio);
+		FiltroCatalogo filtro = new FiltroCatalogo(null, null, null, null, FiltroCatalogo.Orden.PRECIO);
+
+		List<ProductoResumen> primera = productoRepository.buscarCatalogo(filtro, null, 7);
+		List<ProductoResumen> segunda = productoRepository.buscarCatalogo(filtro,
+				CursorCatalogo.despuesDe(primera.get(6), filtro.orden()), 100);
+
+		assertEquals(25, primera.size() + segunda.size());
+		assertTrue(primera.stream().noneMatch(p -> p.precio() == null));
+		assertThrows(IllegalArgumentException.class,
+				() -> CursorCatalogo.despuesDe(primera.get(6), FiltroCatalogo.Orden.ID).validarPara(filtro.orden()));
+	}
+
+	@Test
+	void aplicaFiltrosDeCategoriaOfertaYPrecio() {
+		FiltroCatalogo filtro = new FiltroCatalogo(osos.getId(), true, 1000.0, 3000.0, FiltroCatalogo.Orden.ID);
+
+		List<ProductoResumen> resultado = productoRepository.buscarCatalogo(filtro, null, 100);
+
+		assertFalse(resultado.isEmpty());
+		for (ProductoResumen p : resultado) {
+			assertEquals(osos.getId(), p.categoria().id());
+			assertTrue(p.onSale());
+			assertTrue(p.precio() >= 1000.0 && p.precio() <= 3000.0);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.peluchemania.backend.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtFilterTest {
+
+	private final JwtUtil jwtUtil = new JwtUtil();
+
+	@AfterEach
+	void limpiarContexto() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void autenticaConElRolDelTokenSinConsultarLaBd() throws Exception {
+		JwtFilter filtro = nuevoFiltro();
+		String token = jwtUtil.generateToken(new User("admin@duoc.cl", "x", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+		filtrar(filtro, token);
+		Authentication primera = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		filtrar(filtro, token); // Segunda vez sale de la caché de tokens verificados
+		Authentication segunda = SecurityContextHolder.getContext().getAuthentication();
+
+		assertEquals("admin@duoc.cl", primera.getName());
+		assertTrue(primera.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN")));
+		assertSame(primera.getPrincipal(), segunda.getPrincipal());
+	}
+
+	@Test
+	void ignoraTokensManipulados() throws Exception {
+		JwtFilter filtro = nuevoFiltro();
+		String token = jwtUtil.generateToken(new User("cliente@gmail.com", "x", List.of(new SimpleGrantedAuthority("ROLE_CLIENTE"))));
+
+		filtrar(filtro, token.substring(0, token.length() - 2) + "xx");
+
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	@Test
+	void tokenFirmadoSinSubORolNoAutenticaNiFalla() throws Exception {
+		JwtFilter filtro = nuevoFiltro();
+		Key clave = (Key) ReflectionTestUtils.getField(jwtUtil, "signingKey");
+		Date expira = new Date(System.currentTimeMillis() + 60_000);
+		String sinSub = Jwts.builder().claim("rol", "ROLE_ADMIN").setExpiration(expira).signWith(clave, SignatureAlgorithm.HS256).compact();
+		String sinRol = Jwts.builder().setSubject("admin@duoc.cl").setExpiration(expira).signWith(clave, SignatureAlgorithm.HS256).compact();
+		String rolNoTexto = Jwts.builder().setSubject("admin@duoc.cl").claim("rol", List.of("ROLE_ADMIN"))
+				.setExpiration(expira).signWith(clave, SignatureAlgorithm.HS256).compact();
+
+		for (String token : List.of(sinSub, sinRol, rolNoTexto)) {
+			filtrar(filtro, token);
+			assertNull(SecurityContextHolder.getContext().getAuthentication());
+		}
+		assertFalse(jwtUtil.validateToken(sinSub, new User("admin@duoc.cl", "x", List.of())));
+	}
+
+	private JwtFilter nuevoFiltro() {
+		JwtFilter filtro = new JwtFilter();
+		ReflectionTestUtils.setField(filtro, "jwtUtil", jwtUtil);
+		return filtro;
+	}
+
+	private void filtrar(JwtFilter filtro, String token) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/boletas");
+		request.addHeader("Authorization", "Bearer " + token);
+		filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+	}
+}
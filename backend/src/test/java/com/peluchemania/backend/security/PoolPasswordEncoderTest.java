@@ -0,0 +1,53 @@
+package com.peluchemania.backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoolPasswordEncoderTest {
+
+	@Test
+	void codificaYVerificaComoBCrypt() {
+		try (PoolPasswordEncoder encoder = new PoolPasswordEncoder(4, 1, 4, 5000)) {
+			String hash = encoder.encode("cliente23");
+
+			assertTrue(hash.startsWith("$2a$04$"));
+			assertTrue(encoder.matches("cliente23", hash));
+			assertFalse(encoder.matches("otra", hash));
+		}
+	}
+
+	@Test
+	void rechazaAlInstanteCuandoLaColaEstaLlena() throws Exception {
+		try (PoolPasswordEncoder encoder = new PoolPasswordEncoder(12, 1, 1, 30000)) {
+			ExecutorService clientes = Executors.newFixedThreadPool(8);
+			AtomicInteger rechazados = new AtomicInteger();
+			List<Future<?>> tareas = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				tareas.add(clientes.submit(() -> {
+					try {
+						encoder.encode("admin123");
+					} catch (HashingSaturadoException e) {
+						rechazados.incrementAndGet();
+					}
+				}));
+			}
+			for (Future<?> tarea : tareas) {
+				tarea.get(60, TimeUnit.SECONDS);
+			}
+			clientes.shutdown();
+
+			// 1 hilo + 1 lugar en cola: el resto de la ráfaga se rechaza
+			assertTrue(rechazados.get() >= 1);
+			assertEquals((long) rechazados.get(), encoder.estadisticas().get("rechazados"));
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.entity.Categoria;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.CategoriaRepository;
+import com.peluchemania.backend.repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cruces de umbral con umbral global, de categoría y de producto.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"inventario.stock-bajo.umbral=5"
+})
+@Import(AlertaStockService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AlertaStockServiceTest {
+
+	@Autowired
+	private AlertaStockService alertaStockService;
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Autowired
+	private CategoriaRepository categoriaRepository;
+
+	@Test
+	void alertaSoloCuandoSeCruzaElUmbral() {
+		Categoria osos = new Categoria();
+		osos.setNombre("Osos");
+		categoriaRepository.save(osos);
+		Producto oso = new Producto();
+		oso.setNombre("Oso Panda");
+		oso.setStock(8);
+		oso.setCategoria(osos);
+		productoRepository.save(oso);
+		List<Long> ids = List.of(oso.getId());
+
+		// 1. Umbral global (5): 8 no alerta, 4 sí
+		alertaStockService.evaluar(ids);
+		assertTrue(alertaStockService.alertas().isEmpty());
+		oso.setStock(4);
+		productoRepository.save(oso);
+		alertaStockService.evaluar(ids);
+		assertEquals(List.of(new AlertaStockService.AlertaStock(oso.getId(), "Oso Panda", 4, 5)), alertaStockService.alertas());
+
+		// 2. La categoría baja su umbral a 3: la alerta se resuelve
+		categoriaRepository.actualizarUmbralStockBajo(osos.getId(), 3);
+		alertaStockService.evaluar(ids);
+		assertTrue(alertaStockService.alertas().isEmpty());
+
+		// 3. El producto tiene uno propio (10) que manda sobre el de la categoría
+		productoRepository.actualizarUmbralStockBajo(oso.getId(), 10);
+		alertaStockService.evaluar(ids);
+		assertEquals(10, alertaStockService.alertas().get(0).umbral());
+
+		// 4. Eliminado: deja de estar en alerta
+		productoRepository.deleteById(oso.getId());
+		alertaStockService.evaluar(ids);
+		assertTrue(alertaStockService.idsEnAlerta().isEmpty());
+	}
+}
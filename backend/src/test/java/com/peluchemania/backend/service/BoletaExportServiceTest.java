@@ -0,0 +1,86 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.dto.CursorBoleta;
+import com.peluchemania.backend.entity.Boleta;
+import com.peluchemania.backend.repository.BoletaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(BoletaExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class BoletaExportServiceTest {
+
+	private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+	@Autowired
+	private BoletaExportService boletaExportService;
+
+	@Autowired
+	private BoletaRepository boletaRepository;
+
+	@BeforeEach
+	void crearBoletas() {
+		List<Boleta> boletas = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			Boleta b = new Boleta();
+			b.setUsuarioEmail("cliente" + (i % 3) + "@gmail.com");
+			b.setFecha(INICIO.plusDays(i / 4)); // 4 boletas por día, con fechas repetidas
+			b.setTotal(1000.0 * i);
+			b.setDireccion(i % 10 == 0 ? "Av. Siempreviva 742, Depto \"B\"" : "Retiro en tienda");
+			boletas.add(b);
+		}
+		boletaRepository.saveAll(boletas);
+	}
+
+	@Test
+	void paginaPorFechaSinRepetirNiSaltar() {
+		Set<Long> vistas = new HashSet<>();
+		CursorBoleta cursor = null;
+		LocalDateTime anterior = LocalDateTime.MAX;
+		while (true) {
+			List<Boleta> pagina = boletaRepository.buscarPagina(null, null, cursor, 50);
+			for (Boleta b : pagina) {
+				assertTrue(vistas.add(b.getId()));
+				assertFalse(b.getFecha().isAfter(anterior));
+				anterior = b.getFecha();
+			}
+			if (pagina.size() < 50) {
+				break;
+			}
+			Boleta ultima = pagina.get(49);
+			cursor = new CursorBoleta(ultima.getFecha(), ultima.getId());
+		}
+		assertEquals(120, vistas.size());
+	}
+
+	@Test
+	void exportaCsvYNdjsonPorRango() throws Exception {
+		StringWriter csv = new StringWriter();
+		long filas = boletaExportService.exportar(INICIO, INICIO.plusDays(10), BoletaExportService.Formato.CSV, csv);
+
+		String[] lineas = csv.toString().split("\n");
+		assertEquals(40, filas);
+		assertEquals(41, lineas.length); // Cabecera + 40 filas
+		assertTrue(csv.toString().contains("\"Av. Siempreviva 742, Depto \"\"B\"\"\""));
+
+		StringWriter ndjson = new StringWriter();
+		boletaExportService.exportar(INICIO, INICIO.plusYears(1), BoletaExportService.Formato.NDJSON, ndjson);
+		assertEquals(120, ndjson.toString().lines().count());
+		assertTrue(ndjson.toString().lines().allMatch(l -> l.startsWith("{\"id\":")));
+	}
+}
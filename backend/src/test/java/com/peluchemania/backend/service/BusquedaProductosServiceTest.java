@@ -0,0 +1,54 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.entity.Producto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusquedaProductosServiceTest {
+
+	private BusquedaProductosService busqueda;
+
+	@BeforeEach
+	void setUp() {
+		busqueda = new BusquedaProductosService();
+		busqueda.indexar(producto(1L, "Dragón Cariñoso", "Un dragón de fantasía muy suave"));
+		busqueda.indexar(producto(2L, "Unicornio de Fantasía", "Criatura mágica con cuerno brillante"));
+		busqueda.indexar(producto(3L, "Oso Panda", "Osito abrazable, amigo del dragón"));
+	}
+
+	@Test
+	void ignoraTildesMayusculasYAceptaPrefijos() {
+		assertEquals(List.of(1L, 3L), ids("DRAGON"));
+		assertEquals(List.of(1L), ids("carinoso"));
+		assertEquals(List.of(2L, 1L), ids("fantas"));
+		assertEquals(List.of(1L), ids("drag fanta"));
+		assertEquals(List.of(), ids("dragon cuerno"));
+		assertEquals(List.of(), ids("  ¡! "));
+	}
+
+	@Test
+	void seActualizaAlEditarYEliminar() {
+		busqueda.indexar(producto(3L, "Oso Polar", "Blanco"));
+		assertEquals(List.of(1L), ids("dragon"));
+		assertEquals(List.of(3L), ids("polar"));
+
+		busqueda.quitar(3L);
+		assertEquals(List.of(), ids("oso"));
+	}
+
+	private List<Long> ids(String consulta) {
+		return busqueda.buscar(consulta, 10).stream().map(BusquedaProductosService.Resultado::productoId).toList();
+	}
+
+	private static Producto producto(Long id, String nombre, String descripcion) {
+		Producto p = new Producto();
+		p.setId(id);
+		p.setNombre(nombre);
+		p.setDescripcion(descripcion);
+		return p;
+	}
+}
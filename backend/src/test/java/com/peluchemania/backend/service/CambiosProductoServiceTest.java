@@ -0,0 +1,86 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.dto.CambioProducto;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Coalescencia por ventana, secuencia para reanudar y "reset" cuando el historial ya no alcanza.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		// La ventana se cierra a mano en el test
+		"productos.cambios.intervalo-ms=3600000",
+		"productos.cambios.historial=3"
+})
+@Import(CambiosProductoService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CambiosProductoServiceTest {
+
+	@Autowired
+	private CambiosProductoService cambiosProductoService;
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Test
+	void coalesceYPermiteReanudar() {
+		Producto oso = productoRepository.save(producto("Oso", 20));
+		Producto conejo = productoRepository.save(producto("Conejo", 5));
+		long inicio = cambiosProductoService.secuenciaActual();
+
+		// 1. Tres compras del oso y una del conejo en la misma ventana = 2 deltas
+		for (int stock : new int[]{19, 18, 17}) {
+			oso.setStock(stock);
+			productoRepository.save(oso);
+			cambiosProductoService.productosModificados(new ProductosModificadosEvent(List.of(oso.getId())));
+		}
+		cambiosProductoService.productosModificados(new ProductosModificadosEvent(List.of(conejo.getId())));
+		cambiosProductoService.publicar();
+
+		List<CambioProducto> cambios = cambiosProductoService.perdidosDesde(inicio);
+		assertEquals(2, cambios.size());
+		assertEquals(oso.getId(), cambios.get(0).id());
+		assertEquals(17, cambios.get(0).stock());
+		assertEquals(inicio + 1, cambios.get(0).seq());
+		assertEquals(inicio + 2, cambios.get(1).seq());
+
+		// 2. Eliminado
+		productoRepository.delete(conejo);
+		cambiosProductoService.productosModificados(new ProductosModificadosEvent(List.of(conejo.getId())));
+		cambiosProductoService.publicar();
+		CambioProducto baja = cambiosProductoService.perdidosDesde(inicio + 2).get(0);
+		assertTrue(baja.eliminado());
+		assertEquals(List.of(), cambiosProductoService.perdidosDesde(inicio + 3));
+
+		// 3. El historial guarda 3 deltas: quien se quedó en "inicio" ya debe recargar
+		cambiosProductoService.productosModificados(new ProductosModificadosEvent(List.of(oso.getId())));
+		cambiosProductoService.publicar();
+		assertNull(cambiosProductoService.perdidosDesde(inicio));
+		assertEquals(2, cambiosProductoService.perdidosDesde(inicio + 2).size());
+		// Un id de otro arranque
+		assertNull(cambiosProductoService.perdidosDesde(inicio + 1000));
+	}
+
+	private static Producto producto(String nombre, int stock) {
+		Producto p = new Producto();
+		p.setNombre(nombre);
+		p.setPrecio(9990.0);
+		p.setStock(stock);
+		return p;
+	}
+}
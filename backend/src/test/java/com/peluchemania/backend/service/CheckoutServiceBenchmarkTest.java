@@ -0,0 +1,97 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.dto.LineaCompra;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.ProductoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Idas a la BD y latencia del checkout para carros de 1, 10 y 50 líneas.
+ * Sin batch eran 3N+1 sentencias; ahora deben ser constantes.
+ * Solo corre con -Pbenchmark (el build normal ya cubre las sentencias del checkout en PresupuestoSqlEndpointsTest).
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.show-sql=false"
+})
+@Import({CheckoutService.class, RollupVentasService.class})
+@ImportAutoConfiguration(JdbcTemplateAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CheckoutServiceBenchmarkTest {
+
+	private static final int ITERACIONES = 50;
+
+	@Autowired
+	private CheckoutService checkoutService;
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private final List<Long> ids = new ArrayList<>();
+
+	@BeforeEach
+	void crearProductos() {
+		for (int i = 0; i < 50; i++) {
+			Producto p = new Producto();
+			p.setNombre("Peluche " + i);
+			p.setPrecio(9990.0);
+			p.setStock(1_000_000);
+			ids.add(productoRepository.save(p).getId());
+		}
+	}
+
+	@Test
+	void idasALaBdConstantesSegunTamanoDelCarro() {
+		Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		System.out.println("lineas | sentencias | latencia media (ms)");
+		for (int tamano : new int[]{1, 10, 50}) {
+			List<LineaCompra> carro = new ArrayList<>();
+			for (int i = 0; i < tamano; i++) {
+				carro.add(new LineaCompra(ids.get(i), 1, 9990.0));
+			}
+
+			// Calentamiento (JIT + reserva inicial de ids de la secuencia)
+			for (int i = 0; i < ITERACIONES; i++) {
+				checkoutService.procesarCompra("bench@peluchemania.cl", 9990.0 * tamano, "Retiro en tienda", carro);
+			}
+
+			stats.clear();
+			checkoutService.procesarCompra("bench@peluchemania.cl", 9990.0 * tamano, "Retiro en tienda", carro);
+			long sentencias = stats.getPrepareStatementCount();
+
+			long inicio = System.nanoTime();
+			for (int i = 0; i < ITERACIONES; i++) {
+				checkoutService.procesarCompra("bench@peluchemania.cl", 9990.0 * tamano, "Retiro en tienda", carro);
+			}
+			double latenciaMs = (System.nanoTime() - inicio) / 1_000_000.0 / ITERACIONES;
+
+			System.out.printf("%6d | %10d | %.3f%n", tamano, sentencias, latenciaMs);
+			// SELECT del carro + INSERT boleta + INSERT detalles (+ a veces la secuencia).
+			// El UPDATE condicional de stock es un batch JDBC directo: +1 que Hibernate no cuenta.
+			assertTrue(sentencias <= 6, "Demasiadas sentencias para " + tamano + " líneas: " + sentencias);
+		}
+	}
+}
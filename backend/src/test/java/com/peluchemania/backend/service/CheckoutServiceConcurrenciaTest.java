@@ -0,0 +1,134 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.dto.LineaCompra;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.BoletaRepository;
+import com.peluchemania.backend.repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cientos de compras simultáneas sobre un mismo producto "caliente": nunca se vende de más.
+ * Y un producto que no existe se rechaza como carro inválido, no como falta de stock.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"spring.datasource.hikari.maximum-pool-size=20"
+})
+@Import({CheckoutService.class, RollupVentasService.class})
+@ImportAutoConfiguration(JdbcTemplateAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CheckoutServiceConcurrenciaTest {
+
+	private static final int STOCK_INICIAL = 50;
+	private static final int COMPRAS = 400;
+
+	@Autowired
+	private CheckoutService checkoutService;
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Autowired
+	private BoletaRepository boletaRepository;
+
+	@Test
+	void productoInexistenteNoSeInformaComoFaltaDeStock() {
+		Producto oso = new Producto();
+		oso.setNombre("Oso Chico");
+		oso.setPrecio(9990.0);
+		oso.setStock(3);
+		Long id = productoRepository.save(oso).getId();
+		Long inexistente = id + 1_000_000;
+
+		ProductoInexistenteException e = assertThrows(ProductoInexistenteException.class,
+				() -> checkoutService.procesarCompra("cliente@gmail.com", 19980.0, "Retiro en tienda",
+						List.of(new LineaCompra(id, 1, 9990.0), new LineaCompra(inexistente, 1, 9990.0))));
+		assertEquals(List.of(inexistente), e.getProductosInexistentes());
+		assertEquals(3, productoRepository.findStockById(id));
+
+		// Sin stock sigue siendo 409
+		assertThrows(StockInsuficienteException.class,
+				() -> checkoutService.procesarCompra("cliente@gmail.com", 39960.0, "Retiro en tienda",
+						List.of(new LineaCompra(id, 4, 9990.0))));
+	}
+
+	@Test
+	void ceroSobreventaConComprasConcurrentes() throws Exception {
+		Producto oso = new Producto();
+		oso.setNombre("Oso Gigante");
+		oso.setPrecio(29990.0);
+		oso.setStock(STOCK_INICIAL);
+		Long id = productoRepository.save(oso).getId();
+		long boletasAntes = boletaRepository.count();
+
+		ExecutorService pool = Executors.newFixedThreadPool(32);
+		CountDownLatch largada = new CountDownLatch(1);
+		AtomicInteger exitosas = new AtomicInteger();
+		AtomicInteger rechazadas = new AtomicInteger();
+		List<Future<?>> tareas = new ArrayList<>();
+
+		for (int i = 0; i < COMPRAS; i++) {
+			tareas.add(pool.submit(() -> {
+				largada.await();
+				try {
+					checkoutService.procesarCompra("cliente@gmail.com", 29990.0, "Retiro en tienda",
+							List.of(new LineaCompra(id, 1, 29990.0)));
+					exitosas.incrementAndGet();
+				} catch (StockInsuficienteException e) {
+					rechazadas.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		largada.countDown();
+		for (Future<?> tarea : tareas) {
+			tarea.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		assertEquals(STOCK_INICIAL, exitosas.get());
+		assertEquals(COMPRAS - STOCK_INICIAL, rechazadas.get());
+		assertEquals(0, productoRepository.findById(id).orElseThrow().getStock());
+		assertEquals(STOCK_INICIAL, boletaRepository.count() - boletasAntes);
+	}
+
+	@Test
+	void rechazaLaCompraCompletaSiUnaLineaNoAlcanza() {
+		Producto conStock = new Producto();
+		conStock.setNombre("Conejo Orejón");
+		conStock.setStock(10);
+		Producto agotado = new Producto();
+		agotado.setNombre("Pochita");
+		agotado.setStock(1);
+		Long idConStock = productoRepository.save(conStock).getId();
+		Long idAgotado = productoRepository.save(agotado).getId();
+
+		StockInsuficienteException error = assertThrows(StockInsuficienteException.class, () ->
+				checkoutService.procesarCompra("cliente@gmail.com", 1.0, "Retiro en tienda", List.of(
+						new LineaCompra(idConStock, 2, 9990.0),
+						new LineaCompra(idAgotado, 2, 18990.0))));
+
+		assertEquals(List.of(idAgotado), error.getProductosSinStock());
+		assertEquals(10, productoRepository.findById(idConStock).orElseThrow().getStock());
+		assertEquals(1, productoRepository.findById(idAgotado).orElseThrow().getStock());
+	}
+}
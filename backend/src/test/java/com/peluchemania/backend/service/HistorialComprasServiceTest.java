@@ -0,0 +1,90 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.config.MetricasConfig;
+import com.peluchemania.backend.dto.BoletaConDetalles;
+import com.peluchemania.backend.dto.CursorBoleta;
+import com.peluchemania.backend.dto.LineaCompra;
+import com.peluchemania.backend.dto.PaginaCursor;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.peluchemania.backend.soporte.PresupuestoSql.assertSentencias;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Historial paginado: cada página trae sus líneas con un número fijo de SELECT.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false"
+})
+@Import({HistorialComprasService.class, CheckoutService.class, RollupVentasService.class, MetricasConfig.class})
+@ImportAutoConfiguration(JdbcTemplateAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HistorialComprasServiceTest {
+
+	private static final int COMPRAS = 25;
+
+	@Autowired
+	private HistorialComprasService historialComprasService;
+
+	@Autowired
+	private CheckoutService checkoutService;
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Test
+	void paginasConLineasYSinRepetidos() {
+		Producto oso = new Producto();
+		oso.setNombre("Oso Panda");
+		oso.setPrecio(10000.0);
+		oso.setStock(1_000);
+		Long osoId = productoRepository.save(oso).getId();
+		Producto conejo = new Producto();
+		conejo.setNombre("Conejo");
+		conejo.setPrecio(5000.0);
+		conejo.setStock(1_000);
+		Long conejoId = productoRepository.save(conejo).getId();
+
+		for (int i = 0; i < COMPRAS; i++) {
+			checkoutService.procesarCompra("historial@gmail.com", 15000.0, "Retiro en tienda",
+					List.of(new LineaCompra(osoId, 1, 10000.0), new LineaCompra(conejoId, 1, 5000.0)));
+		}
+		checkoutService.procesarCompra("otro@gmail.com", 10000.0, "Retiro en tienda",
+				List.of(new LineaCompra(osoId, 1, 10000.0)));
+
+		Set<Long> vistas = new HashSet<>();
+		List<Integer> tamanos = new ArrayList<>();
+		String cursor = null;
+		do {
+			String actual = cursor;
+			// 1 SELECT de boletas + 1 SELECT de todas sus líneas
+			PaginaCursor<BoletaConDetalles> pagina = assertSentencias(2, () -> historialComprasService.pagina(
+					"historial@gmail.com", CursorBoleta.decodificar(actual), 10));
+
+			for (BoletaConDetalles boleta : pagina.items()) {
+				assertTrue(vistas.add(boleta.id()), "Boleta repetida entre páginas: " + boleta.id());
+				assertEquals(2, boleta.lineas().size());
+				assertEquals("Oso Panda", boleta.lineas().get(0).nombre());
+			}
+			tamanos.add(pagina.items().size());
+			cursor = pagina.siguienteCursor();
+		} while (cursor != null);
+
+		assertEquals(List.of(10, 10, 5), tamanos);
+	}
+}
@@ -0,0 +1,79 @@
+package com.peluchemania.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImagenStorageServiceTest {
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void guardaUnaSolaVezPorContenido() throws Exception {
+		ImagenStorageService storage = new ImagenStorageService(directorio.toString());
+		byte[] datos = {1, 2, 3, 4};
+
+		String primera = storage.guardar(datos, "image/png");
+		String segunda = storage.guardar(datos, "image/png");
+
+		assertEquals(primera, segunda);
+		assertTrue(primera.endsWith(".png"));
+		assertArrayEquals(datos, Files.readAllBytes(storage.buscar(primera).orElseThrow()));
+	}
+
+	@Test
+	void convierteDataUriEnUrlCorta() {
+		ImagenStorageService storage = new ImagenStorageService(directorio.toString());
+		String dataUri = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(new byte[2048]);
+
+		String url = storage.normalizarUrlImagen(dataUri);
+
+		assertTrue(url.startsWith(ImagenStorageService.PREFIJO_URL));
+		assertTrue(url.length() < 100);
+		assertEquals("/osito.jpg", storage.normalizarUrlImagen("/osito.jpg"));
+	}
+
+	@Test
+	void rechazaClavesFueraDelAlmacen() {
+		ImagenStorageService storage = new ImagenStorageService(directorio.toString());
+
+		assertTrue(storage.buscar("../application.properties").isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> storage.normalizarUrlImagen("data:text/html;base64,AAAA"));
+	}
+
+	@Test
+	void subidaPorStreamUsaLaFirmaYNoDejaTemporales() throws Exception {
+		ImagenStorageService storage = new ImagenStorageService(directorio.toString());
+		byte[] png = new byte[200_000];
+		System.arraycopy(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, 0, png, 0, 8);
+
+		String clave = storage.guardar(new ByteArrayInputStream(png), 1_000_000);
+
+		// Misma clave que guardando los bytes de una vez: la subida y el base64 no duplican la imagen
+		assertEquals(storage.guardar(png, "image/png"), clave);
+		assertEquals(ImagenStorageService.PREFIJO_URL + clave,
+				storage.normalizarUrlImagen(ImagenStorageService.PREFIJO_URL + clave));
+		assertThrows(IllegalArgumentException.class,
+				() -> storage.guardar(new ByteArrayInputStream("<html>".getBytes()), 1_000_000));
+		assertThrows(IllegalArgumentException.class, () -> storage.guardar(new ByteArrayInputStream(png), 100_000));
+		try (Stream<Path> archivos = Files.list(directorio)) {
+			assertTrue(archivos.noneMatch(ruta -> ruta.toString().endsWith(".tmp")));
+		}
+	}
+
+	@Test
+	void urlDelAlmacenInexistenteSeRechaza() {
+		ImagenStorageService storage = new ImagenStorageService(directorio.toString());
+
+		assertThrows(IllegalArgumentException.class,
+				() -> storage.normalizarUrlImagen(ImagenStorageService.PREFIJO_URL + "0".repeat(64) + ".png"));
+	}
+}
@@ -0,0 +1,133 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.config.CacheConfig;
+import com.peluchemania.backend.dto.EstadoPedido;
+import com.peluchemania.backend.dto.LineaCompra;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.BoletaRepository;
+import com.peluchemania.backend.repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Flash sale por la cola asíncrona: sin sobreventa, todo pedido aceptado termina CONFIRMADO
+ * y los pedidos se guardan agrupados en lotes.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"inventario.ledger.enabled=true",
+		"checkout.asincrono.enabled=true"
+})
+@Import({IngresoPedidosService.class, CheckoutService.class, RollupVentasService.class, InventarioLedger.class,
+		CatalogoCache.class, CacheConfig.class})
+@ImportAutoConfiguration(JdbcTemplateAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IngresoPedidosServiceTest {
+
+	private static final int STOCK_INICIAL = 150;
+	private static final int COMPRAS = 200;
+
+	@Autowired
+	private IngresoPedidosService ingresoPedidosService;
+
+	@MockitoSpyBean
+	private InventarioLedger inventarioLedger;
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Autowired
+	private BoletaRepository boletaRepository;
+
+	@Test
+	void aceptaAlInstanteYGuardaEnLotes() throws Exception {
+		Producto oso = new Producto();
+		oso.setNombre("Oso Flash");
+		oso.setPrecio(9990.0);
+		oso.setStock(STOCK_INICIAL);
+		Long id = productoRepository.save(oso).getId();
+		long boletasAntes = boletaRepository.count();
+
+		ExecutorService pool = Executors.newFixedThreadPool(32);
+		AtomicInteger sinStock = new AtomicInteger();
+		List<Future<EstadoPedido>> tareas = new ArrayList<>();
+		for (int i = 0; i < COMPRAS; i++) {
+			tareas.add(pool.submit(() -> {
+				try {
+					return ingresoPedidosService.aceptar("flash@gmail.com", 9990.0, "Retiro en tienda",
+							List.of(new LineaCompra(id, 1, 9990.0)));
+				} catch (StockInsuficienteException e) {
+					sinStock.incrementAndGet();
+					return null;
+				}
+			}));
+		}
+
+		// 1. Cada pedido aceptado termina CONFIRMADO con su boleta
+		int confirmados = 0;
+		for (Future<EstadoPedido> tarea : tareas) {
+			EstadoPedido aceptado = tarea.get(60, TimeUnit.SECONDS);
+			if (aceptado == null) {
+				continue;
+			}
+			assertEquals(EstadoPedido.Estado.EN_COLA, aceptado.estado());
+			EstadoPedido fin = ingresoPedidosService.esperar(aceptado.pedidoId(), 30_000).get(60, TimeUnit.SECONDS);
+			assertEquals(EstadoPedido.Estado.CONFIRMADO, fin.estado());
+			assertNotNull(fin.boletaId());
+			confirmados++;
+		}
+		pool.shutdown();
+
+		assertEquals(STOCK_INICIAL, confirmados);
+		assertEquals(COMPRAS - STOCK_INICIAL, sinStock.get());
+		assertEquals(STOCK_INICIAL, boletaRepository.count() - boletasAntes);
+
+		// 2. El stock en la BD llega a 0 después del flush del ledger
+		inventarioLedger.flush();
+		assertEquals(0, productoRepository.findStockById(id));
+
+		long lotes = (long) ingresoPedidosService.estadisticas().get("lotes");
+		System.out.printf("pedidos=%d lotes=%d%n", confirmados, lotes);
+		assertTrue(lotes <= confirmados);
+	}
+
+	@Test
+	void siEncolarFallaTrasElCommitNoSeGuardaDosVeces() throws Exception {
+		Producto oso = new Producto();
+		oso.setNombre("Oso Apagado");
+		oso.setPrecio(9990.0);
+		oso.setStock(5);
+		Long id = productoRepository.save(oso).getId();
+		long boletasAntes = boletaRepository.count();
+		// Como al apagar: el flusher del ledger rechaza tareas nuevas
+		doThrow(new RejectedExecutionException("apagando")).when(inventarioLedger).encolar(anyList());
+
+		EstadoPedido aceptado = ingresoPedidosService.aceptar("apagado@gmail.com", 9990.0, "Retiro en tienda",
+				List.of(new LineaCompra(id, 1, 9990.0)));
+		EstadoPedido fin = ingresoPedidosService.esperar(aceptado.pedidoId(), 30_000).get(60, TimeUnit.SECONDS);
+
+		assertEquals(EstadoPedido.Estado.CONFIRMADO, fin.estado());
+		assertEquals(1, boletaRepository.count() - boletasAntes);
+	}
+}
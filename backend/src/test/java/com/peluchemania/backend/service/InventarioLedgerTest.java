@@ -0,0 +1,142 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.config.CacheConfig;
+import com.peluchemania.backend.dto.LineaCompra;
+import com.peluchemania.backend.entity.Boleta;
+import com.peluchemania.backend.entity.DetalleBoleta;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.repository.BoletaRepository;
+import com.peluchemania.backend.repository.DetalleBoletaRepository;
+import com.peluchemania.backend.repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"inventario.ledger.enabled=true",
+		"inventario.ledger.intervalo-flush-ms=60000"
+})
+@Import({CheckoutService.class, RollupVentasService.class, InventarioLedger.class, CatalogoCache.class, CacheConfig.class})
+@ImportAutoConfiguration(JdbcTemplateAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventarioLedgerTest {
+
+	@Autowired
+	private CheckoutService checkoutService;
+
+	@Autowired
+	private InventarioLedger inventarioLedger;
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Autowired
+	private BoletaRepository boletaRepository;
+
+	@Autowired
+	private DetalleBoletaRepository detalleBoletaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void reservaEnMemoriaYEscribeElStockAgrupado() throws Exception {
+		Long id = crearProducto("Oso Gigante", 30);
+
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		AtomicInteger exitosas = new AtomicInteger();
+		List<Future<?>> tareas = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			tareas.add(pool.submit(() -> {
+				try {
+					checkoutService.procesarCompra("cliente@gmail.com", 29990.0, "Retiro en tienda",
+							List.of(new LineaCompra(id, 1, 29990.0)));
+					exitosas.incrementAndGet();
+				} catch (StockInsuficienteException e) {
+					// Esperado cuando se agota
+				}
+				return null;
+			}));
+		}
+		for (Future<?> tarea : tareas) {
+			tarea.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		assertEquals(30, exitosas.get());
+		assertEquals(0, inventarioLedger.disponible(id));
+		// Aún sin flush la fila en MySQL no se ha tocado
+		assertEquals(30, productoRepository.findStockById(id));
+
+		inventarioLedger.flush();
+
+		assertEquals(0, productoRepository.findStockById(id));
+		assertEquals(0, jdbcTemplate.queryForObject(
+				"select count(*) from detalle_boleta where stock_aplicado = false", Integer.class));
+	}
+
+	@Test
+	void recuperaDescuentosPendientesTrasUnaCaida() {
+		Long id = crearProducto("Pochita", 6);
+		Boleta boleta = new Boleta();
+		boleta.setUsuarioEmail("cliente@gmail.com");
+		boletaRepository.save(boleta);
+		DetalleBoleta detalle = new DetalleBoleta();
+		detalle.setBoleta(boleta);
+		detalle.setProducto(productoRepository.findById(id).orElseThrow());
+		detalle.setCantidad(2);
+		detalle.setStockAplicado(false); // Boleta confirmada cuyo descuento no alcanzó a escribirse
+		detalleBoletaRepository.save(detalle);
+
+		inventarioLedger.recuperarPendientes();
+
+		assertEquals(4, productoRepository.findStockById(id));
+		assertEquals(4, inventarioLedger.disponible(id));
+	}
+
+	@Test
+	void stockEditadoPorAdminNoCreaStockFantasma() {
+		Long id = crearProducto("Oso Pirata", 10);
+		// 3 vendidas y en cola (sin flush) + 2 reservadas de una compra que aún no confirma
+		checkoutService.procesarCompra("cliente@gmail.com", 1.0, "Retiro en tienda", List.of(new LineaCompra(id, 3, 1.0)));
+		assertTrue(inventarioLedger.reservar(new TreeMap<>(Map.of(id, 2))).isEmpty());
+
+		// El admin deja 20 disponibles
+		inventarioLedger.fijarStock(id, 20, stockFila -> jdbcTemplate.update("update producto set stock = ? where id = ?", stockFila, id));
+		assertEquals(20, inventarioLedger.disponible(id));
+
+		// La compra en curso se revierte y la cola se escribe: fila y contador cuadran
+		inventarioLedger.liberar(Map.of(id, 2));
+		inventarioLedger.flush();
+		assertEquals(22, inventarioLedger.disponible(id));
+		assertEquals(22, productoRepository.findStockById(id));
+	}
+
+	private Long crearProducto(String nombre, int stock) {
+		Producto p = new Producto();
+		p.setNombre(nombre);
+		p.setPrecio(9990.0);
+		p.setStock(stock);
+		return productoRepository.save(p).getId();
+	}
+}
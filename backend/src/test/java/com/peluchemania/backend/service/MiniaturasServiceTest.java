@@ -0,0 +1,107 @@
+package com.peluchemania.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MiniaturasServiceTest {
+
+	@TempDir
+	Path directorio;
+
+	private ImagenStorageService storage;
+	private MiniaturasService miniaturas;
+
+	@BeforeEach
+	void crear() {
+		storage = new ImagenStorageService(directorio.toString());
+		miniaturas = new MiniaturasService();
+		ReflectionTestUtils.setField(miniaturas, "imagenStorageService", storage);
+		ReflectionTestUtils.setField(miniaturas, "calidadJpeg", 0.82f);
+	}
+
+	@Test
+	void generaLasTresVersionesEnJpegSinCambiarProporcion() throws Exception {
+		String clave = storage.guardar(imagen(2000, 1500, BufferedImage.TYPE_INT_RGB, "png"), "image/png");
+
+		miniaturas.generar(clave);
+
+		for (MiniaturasService.Tamano tamano : MiniaturasService.Tamano.values()) {
+			Path archivo = storage.buscarRendicion(clave, tamano.nombre()).orElseThrow();
+			assertTrue(archivo.toString().endsWith("-" + tamano.nombre() + ".jpg"));
+			BufferedImage leida = ImageIO.read(archivo.toFile());
+			assertEquals(tamano.ancho(), leida.getWidth());
+			assertEquals(tamano.ancho() * 3 / 4, leida.getHeight());
+		}
+		assertTrue(Files.size(storage.buscarRendicion(clave, "grid").orElseThrow())
+				< Files.size(storage.buscar(clave).orElseThrow()));
+	}
+
+	@Test
+	void fotoChicaNoSeAgranda() throws Exception {
+		String clave = storage.guardar(imagen(500, 400, BufferedImage.TYPE_INT_RGB, "jpg"), "image/jpeg");
+
+		miniaturas.generar(clave);
+
+		assertEquals(320, ImageIO.read(storage.buscarRendicion(clave, "grid").orElseThrow().toFile()).getWidth());
+		assertEquals(500, ImageIO.read(storage.buscarRendicion(clave, "zoom").orElseThrow().toFile()).getWidth());
+	}
+
+	@Test
+	void conTransparenciaQuedaEnPng() throws Exception {
+		String clave = storage.guardar(imagen(900, 900, BufferedImage.TYPE_INT_ARGB, "png"), "image/png");
+
+		miniaturas.generar(clave);
+
+		Path grid = storage.buscarRendicion(clave, "grid").orElseThrow();
+		assertTrue(grid.toString().endsWith(".png"));
+		assertTrue(ImageIO.read(grid.toFile()).getColorModel().hasAlpha());
+	}
+
+	@Test
+	void decodificaSubmuestreadoSegunAmbosLados() {
+		assertEquals(1, MiniaturasService.paso(3200, 2400));
+		assertEquals(2, MiniaturasService.paso(6000, 4000));
+		assertEquals(2, MiniaturasService.paso(3201, 100));
+		// Alta y angosta (100 MP): se acota por el alto
+		assertEquals(32, MiniaturasService.paso(1000, 100_000));
+	}
+
+	@Test
+	void originalIlegibleQuedaMarcadoYNoSeReencola() throws Exception {
+		byte[] completa = imagen(900, 900, BufferedImage.TYPE_INT_RGB, "png");
+		String clave = storage.guardar(Arrays.copyOf(completa, 200), "image/png");
+
+		miniaturas.generar(clave);
+
+		assertTrue(storage.sinRendiciones(clave));
+		assertTrue(storage.buscarRendicion(clave, "grid").isEmpty());
+		assertEquals(List.of(clave), storage.claves());
+		// Sin executor iniciado: si encolar intentara procesarla otra vez, fallaría
+		assertDoesNotThrow(() -> miniaturas.encolar(clave));
+	}
+
+	private static byte[] imagen(int ancho, int alto, int tipo, String formato) throws Exception {
+		BufferedImage imagen = new BufferedImage(ancho, alto, tipo);
+		Graphics2D g = imagen.createGraphics();
+		g.setColor(new Color(200, 120, 60, tipo == BufferedImage.TYPE_INT_ARGB ? 128 : 255));
+		g.fillOval(0, 0, ancho, alto);
+		g.dispose();
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		ImageIO.write(imagen, formato, salida);
+		return salida.toByteArray();
+	}
+}
@@ -0,0 +1,179 @@
+package com.peluchemania.backend.service;
+
+import com.peluchemania.backend.dto.LineaCompra;
+import com.peluchemania.backend.dto.VentaCategoriaResumen;
+import com.peluchemania.backend.dto.VentaProductoResumen;
+import com.peluchemania.backend.entity.Categoria;
+import com.peluchemania.backend.entity.Producto;
+import com.peluchemania.backend.entity.VentaDiaria;
+import com.peluchemania.backend.repository.CategoriaRepository;
+import com.peluchemania.backend.repository.ProductoRepository;
+import com.peluchemania.backend.repository.VentaCategoriaRepository;
+import com.peluchemania.backend.repository.VentaDiariaRepository;
+import com.peluchemania.backend.repository.VentaProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Los rollups que suma el checkout (tras el commit, al volcar) deben coincidir con un recálculo completo desde las boletas.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false"
+})
+@Import({CheckoutService.class, RollupVentasService.class})
+@ImportAutoConfiguration(JdbcTemplateAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RollupVentasServiceTest {
+
+	@Autowired
+	private CheckoutService checkoutService;
+
+	@Autowired
+	private RollupVentasService rollupVentasService;
+
+	@Autowired
+	private ProductoRepository productoRepository;
+
+	@Autowired
+	private CategoriaRepository categoriaRepository;
+
+	@Autowired
+	private VentaDiariaRepository ventaDiariaRepository;
+
+	@Autowired
+	private VentaProductoRepository ventaProductoRepository;
+
+	@Autowired
+	private VentaCategoriaRepository ventaCategoriaRepository;
+
+	@Test
+	void rollupIncrementalCoincideConReconstruccion() {
+		Categoria osos = new Categoria();
+		osos.setNombre("Osos");
+		categoriaRepository.save(osos);
+		Long oso = crearProducto("Oso Panda", 10000.0, osos);
+		Long conejo = crearProducto("Conejo", 5000.0, osos);
+
+		checkoutService.procesarCompra("a@gmail.com", 25000.0, "Retiro en tienda",
+				List.of(new LineaCompra(oso, 2, 10000.0), new LineaCompra(conejo, 1, 5000.0)));
+		checkoutService.procesarCompra("b@gmail.com", 10000.0, "Retiro en tienda",
+				List.of(new LineaCompra(conejo, 2, 5000.0)));
+
+		// Una compra revertida (producto inexistente) no debe sumar nada
+		assertThrows(RuntimeException.class, () -> checkoutService.procesarCompra("c@gmail.com", 1.0, "Retiro en tienda",
+				List.of(new LineaCompra(oso, 1, 10000.0), new LineaCompra(-1L, 1, 1.0))));
+
+		// 1. Lo que sumó el checkout
+		rollupVentasService.volcar();
+		List<VentaDiaria> dias = ventaDiariaRepository.findByFechaBetweenOrderByFecha(LocalDate.now(), LocalDate.now());
+		assertEquals(1, dias.size());
+		assertEquals(2, dias.get(0).getBoletas());
+		assertEquals(5, dias.get(0).getUnidades());
+		assertEquals(35000.0, dias.get(0).getIngresos(), 0.001);
+
+		List<VentaProductoResumen> top = ventaProductoRepository.findTop(Limit.of(10));
+		assertEquals(List.of(new VentaProductoResumen(oso, "Oso Panda", 2, 20000.0),
+				new VentaProductoResumen(conejo, "Conejo", 3, 15000.0)), top);
+		List<VentaCategoriaResumen> categorias = ventaCategoriaRepository.findResumen();
+
+		// 2. Recalcular desde cero debe dar exactamente lo mismo
+		rollupVentasService.reconstruir();
+
+		assertEquals(dias, ventaDiariaRepository.findByFechaBetweenOrderByFecha(LocalDate.now(), LocalDate.now()));
+		assertEquals(top, ventaProductoRepository.findTop(Limit.of(10)));
+		assertEquals(categorias, ventaCategoriaRepository.findResumen());
+		assertEquals(5, categorias.get(0).unidades());
+	}
+
+	@Test
+	void reconstruirConComprasYVolcadosConcurrentesNoCuentaDosVeces() throws Exception {
+		Categoria peces = new Categoria();
+		peces.setNombre("Peces");
+		categoriaRepository.save(peces);
+		Long pez = crearProducto("Pez Payaso", 1000.0, peces);
+		Producto conStock = productoRepository.findById(pez).orElseThrow();
+		conStock.setStock(1000);
+		productoRepository.save(conStock);
+		int porHilo = 40;
+
+		ExecutorService pool = Executors.newFixedThreadPool(6);
+		CountDownLatch largada = new CountDownLatch(1);
+		AtomicBoolean comprando = new AtomicBoolean(true);
+		List<Future<?>> compras = new ArrayList<>();
+		for (int h = 0; h < 4; h++) {
+			compras.add(pool.submit(() -> {
+				largada.await();
+				for (int i = 0; i < porHilo; i++) {
+					checkoutService.procesarCompra("pez@gmail.com", 1000.0, "Retiro en tienda",
+							List.of(new LineaCompra(pez, 1, 1000.0)));
+				}
+				return null;
+			}));
+		}
+		// 1. Volcados y reconstrucciones mientras llegan las compras
+		Future<?> volcados = pool.submit(() -> {
+			largada.await();
+			while (comprando.get()) {
+				rollupVentasService.volcar();
+			}
+			return null;
+		});
+		Future<?> reconstrucciones = pool.submit(() -> {
+			largada.await();
+			while (comprando.get()) {
+				rollupVentasService.reconstruir();
+			}
+			return null;
+		});
+		largada.countDown();
+		for (Future<?> compra : compras) {
+			compra.get(60, TimeUnit.SECONDS);
+		}
+		comprando.set(false);
+		volcados.get(60, TimeUnit.SECONDS);
+		reconstrucciones.get(60, TimeUnit.SECONDS);
+		pool.shutdown();
+
+		// 2. Cada compra cuenta exactamente una vez
+		rollupVentasService.volcar();
+		assertEquals(4 * porHilo, unidadesVendidas(pez));
+		rollupVentasService.reconstruir();
+		assertEquals(4 * porHilo, unidadesVendidas(pez));
+	}
+
+	private long unidadesVendidas(Long productoId) {
+		return ventaProductoRepository.findTop(Limit.of(100)).stream()
+				.filter(v -> v.productoId().equals(productoId))
+				.mapToLong(VentaProductoResumen::unidades)
+				.sum();
+	}
+
+	private Long crearProducto(String nombre, double precio, Categoria categoria) {
+		Producto producto = new Producto();
+		producto.setNombre(nombre);
+		producto.setPrecio(precio);
+		producto.setStock(100);
+		producto.setCategoria(categoria);
+		return productoRepository.save(producto).getId();
+	}
+}
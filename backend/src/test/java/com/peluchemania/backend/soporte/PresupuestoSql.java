@@ -0,0 +1,93 @@
+package com.peluchemania.backend.soporte;
+
+import com.peluchemania.backend.config.ContadorSql;
+import com.peluchemania.backend.config.MetricasConfig;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.function.ThrowingSupplier;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.Map;
+
+/**
+ * Aserciones de presupuesto de SQL para tests: cuentan las sentencias que ejecuta el bloque
+ * (en el mismo hilo) y, si no calzan, el mensaje lista cada SQL con sus repeticiones.
+ * Los "next value for ..." de las secuencias no cuentan: Hibernate reserva ids de a 50 y el momento
+ * en que pide otro bloque depende de los tests anteriores, no del endpoint.
+ * <p>
+ * Requiere el DataSource envuelto por {@link ContadorSql}: en un @SpringBootTest ya lo está,
+ * en un @DataJpaTest se agrega con @Import({@link MetricasConfig}.class).
+ */
+public final class PresupuestoSql {
+
+    private PresupuestoSql() {
+    }
+
+    // Exactamente N sentencias: si baja también falla, para que el presupuesto se ajuste al mejorar
+    public static void assertSentencias(int esperadas, Executable bloque) {
+        assertSentencias(esperadas, () -> {
+            bloque.execute();
+            return null;
+        });
+    }
+
+    public static <T> T assertSentencias(int esperadas, ThrowingSupplier<T> bloque) {
+        Medido<T> medido = medir(bloque);
+        int ejecutadas = sentencias(medido.medicion());
+        if (ejecutadas != esperadas) {
+            throw new AssertionFailedError(reporte("Se esperaban " + esperadas, medido.medicion()), esperadas, ejecutadas);
+        }
+        return medido.resultado();
+    }
+
+    // Como mucho N sentencias (para flujos cuyo conteo exacto depende de cachés o del orden de los tests)
+    public static <T> T assertMaximoSentencias(int maximo, ThrowingSupplier<T> bloque) {
+        Medido<T> medido = medir(bloque);
+        if (sentencias(medido.medicion()) > maximo) {
+            throw new AssertionFailedError(reporte("Se esperaban como mucho " + maximo, medido.medicion()));
+        }
+        return medido.resultado();
+    }
+
+    public record Medido<T>(T resultado, ContadorSql.Medicion medicion) {
+    }
+
+    public static <T> Medido<T> medir(ThrowingSupplier<T> bloque) {
+        if (!ContadorSql.instalado()) {
+            throw new IllegalStateException("El DataSource no pasa por ContadorSql: importar MetricasConfig en el test");
+        }
+        ContadorSql.Medicion medicion = ContadorSql.iniciar();
+        try {
+            return new Medido<>(bloque.get(), medicion);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        } finally {
+            ContadorSql.terminar(medicion);
+        }
+    }
+
+    // Sentencias que cuentan para el presupuesto (todas menos las de secuencias)
+    public static int sentencias(ContadorSql.Medicion medicion) {
+        int secuencias = medicion.porSql().entrySet().stream()
+                .filter(sql -> esSecuencia(sql.getKey()))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+        return medicion.sentencias() - secuencias;
+    }
+
+    private static boolean esSecuencia(String sql) {
+        String minusculas = sql.toLowerCase();
+        return minusculas.contains("next value for") || minusculas.contains("nextval(");
+    }
+
+    static String reporte(String esperado, ContadorSql.Medicion medicion) {
+        StringBuilder reporte = new StringBuilder(esperado)
+                .append(" sentencias SQL y se ejecutaron ").append(sentencias(medicion)).append(':');
+        for (Map.Entry<String, Integer> sql : medicion.porSql().entrySet()) {
+            reporte.append("\n  ").append(sql.getValue()).append("x  ").append(sql.getKey())
+                    .append(esSecuencia(sql.getKey()) ? "  (secuencia, no cuenta)" : "");
+        }
+        return reporte.toString();
+    }
+}